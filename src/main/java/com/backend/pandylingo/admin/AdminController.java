@@ -9,6 +9,8 @@ import com.backend.pandylingo.exception.*;
 import com.backend.pandylingo.model.*;
 import com.backend.pandylingo.repository.LessonRepository;
 import com.backend.pandylingo.repository.UserRepository;
+import com.backend.pandylingo.security.TokenEpochCache;
+import com.backend.pandylingo.security.UserPrincipalCache;
 import com.backend.pandylingo.service.AppStatsService;
 import com.backend.pandylingo.service.ExerciseService;
 import com.backend.pandylingo.service.LessonService;
@@ -36,6 +38,8 @@ public class AdminController {
     private final UserRepository userRepository;
     private final LessonRepository lessonRepository;
     private final AppStatsService statsService;
+    private final TokenEpochCache tokenEpochCache;
+    private final UserPrincipalCache userCache;
     
     // Application Statistics getter endpoint
     @GetMapping("/app/stats")
@@ -154,7 +158,10 @@ public class AdminController {
             }
 
             user.setRole(Role.ADMIN);
+            // Outstanding access tokens still carry the old role claim
+            tokenEpochCache.revokeTokens(user);
             userRepository.save(user);
+            userCache.invalidate(user);
 
             return ResponseEntity.ok("User promoted to admin successfully");
         } catch (DataAccessException ex) {
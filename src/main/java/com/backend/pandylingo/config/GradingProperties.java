@@ -0,0 +1,31 @@
+package com.backend.pandylingo.config;
+
+import com.backend.pandylingo.model.Language;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "grading.typo-tolerance")
+public class GradingProperties {
+    private boolean enabled = true;
+
+    // Share of the exercise's xp awarded for an almost correct answer
+    private int partialXpPercent = 50;
+
+    // One edit is tolerated per this many characters of the correct answer, up to maxEdits
+    private int charsPerEdit = 5;
+    private int maxEdits = 2;
+
+    // Overrides charsPerEdit per language, e.g. for romaji, which spells each kana with 1-3 letters
+    private Map<Language, Integer> charsPerEditByLanguage = new EnumMap<>(Language.class);
+
+    public int allowedEdits(Language language, int answerLength) {
+        int chars = language == null ? charsPerEdit : charsPerEditByLanguage.getOrDefault(language, charsPerEdit);
+        return chars <= 0 ? 0 : Math.min(maxEdits, answerLength / chars);
+    }
+}
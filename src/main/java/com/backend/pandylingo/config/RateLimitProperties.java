@@ -0,0 +1,34 @@
+package com.backend.pandylingo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // Buckets that have not been touched for this long are dropped
+    private long idleEvictionSeconds = 600;
+
+    // Checked in declaration order; the first route whose pattern matches applies
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public enum KeyType {
+        IP,
+        USER
+    }
+
+    @Data
+    public static class Route {
+        private String pattern;
+        private KeyType key = KeyType.IP;
+        private int capacity;
+        private double refillPerMinute;
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -46,7 +47,8 @@ public class ExerciseController {
                 .correctAnswer(exercise.getCorrectAnswer());
 
         switch (exercise) {
-            case TranslationExercise _ -> builder.type("translation");
+            case TranslationExercise te -> builder.type("translation")
+                    .acceptedAnswers(te.getAcceptedAnswers());
             case MultipleChoiceExercise mce -> builder.type("multiple_choice")
                     .options(mce.getOptions());
             case MatchingExercise me -> builder.type("matching")
@@ -74,6 +76,7 @@ public class ExerciseController {
                     .xpReward(dto.getXpReward())
                     .heartsCost(dto.getHeartsCost())
                     .correctAnswer(dto.getCorrectAnswer())
+                    .acceptedAnswers(dto.getAcceptedAnswers() == null ? new ArrayList<>() : dto.getAcceptedAnswers())
                     .build();
             case "multiple_choice" -> {
                 if (dto.getOptions() == null || dto.getOptions().isEmpty()) {
@@ -7,9 +7,9 @@ import com.backend.pandylingo.model.Friendship;
 import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.repository.FriendshipRepository;
 import com.backend.pandylingo.repository.UserRepository;
-import com.backend.pandylingo.security.JwtUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -22,12 +22,9 @@ import java.util.stream.Collectors;
 public class FriendController {
     private final FriendshipRepository friendshipRepository;
     private final UserRepository userRepository;
-    private final JwtUtils jwtUtils;
 
     @GetMapping
-    public ResponseEntity<List<FriendDTO>> getFriends(@RequestHeader("Authorization") String token) {
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        
+    public ResponseEntity<List<FriendDTO>> getFriends(@AuthenticationPrincipal User currentUser) {
         List<Friendship> friendships = friendshipRepository.findAllAcceptedByUser(currentUser);
         List<FriendDTO> friends = friendships.stream()
                 .map(friendship -> mapToFriendDTO(friendship, currentUser))
@@ -37,9 +34,7 @@ public class FriendController {
     }
 
     @GetMapping("/pending")
-    public ResponseEntity<List<FriendDTO>> getPendingFriends(@RequestHeader("Authorization") String token) {
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        
+    public ResponseEntity<List<FriendDTO>> getPendingFriends(@AuthenticationPrincipal User currentUser) {
         // Get friend requests received
         List<Friendship> receivedRequests = friendshipRepository.findAllPendingByFriend(currentUser);
         List<FriendDTO> receivedFriends = receivedRequests.stream()
@@ -60,10 +55,9 @@ public class FriendController {
 
     @PostMapping("/request")
     public ResponseEntity<?> sendFriendRequest(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @RequestBody AddFriendRequest request) {
         
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
         UUID friendID = request.getFriendID();
         
         // Find the friend user
@@ -103,11 +97,9 @@ public class FriendController {
 
     @PostMapping("/accept/{friendshipId}")
     public ResponseEntity<?> acceptFriendRequest(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @PathVariable UUID friendshipId) {
         
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new IllegalArgumentException("Friendship not found"));
         
@@ -133,11 +125,9 @@ public class FriendController {
 
     @DeleteMapping("/{friendshipId}")
     public ResponseEntity<?> rejectOrRemoveFriend(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @PathVariable UUID friendshipId) {
         
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        
         Friendship friendship = friendshipRepository.findById(friendshipId)
                 .orElseThrow(() -> new IllegalArgumentException("Friendship not found"));
         
@@ -156,11 +146,9 @@ public class FriendController {
 
     @GetMapping("/search")
     public ResponseEntity<List<FriendDTO>> searchUsers(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @RequestParam String query) {
         
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        
         // Find users whose username contains the query
         List<User> users = userRepository.findByFullName(query);
         
@@ -1,105 +1,71 @@
 package com.backend.pandylingo.controller;
 
 import com.backend.pandylingo.dto.user.LeaderboardEntryDTO;
+import com.backend.pandylingo.dto.user.LeaderboardPage;
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.model.LeaderboardWindow;
 import com.backend.pandylingo.model.User;
-import com.backend.pandylingo.model.UserProfile;
-import com.backend.pandylingo.repository.UserProfileRepository;
-import com.backend.pandylingo.security.JwtUtils;
+import com.backend.pandylingo.service.LeaderboardService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/leaderboard")
 @RequiredArgsConstructor
 public class LeaderboardController {
-    private final UserProfileRepository userProfileRepository;
-    private final JwtUtils jwtUtils;
+    private final LeaderboardService leaderboardService;
 
     @GetMapping
     public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
-            @RequestHeader("Authorization") String token,
-            @RequestParam(defaultValue = "10") int limit) {
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "all") String window) {
 
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        UUID currentUserId = currentUser.getId();
-
-        // Get top users by XP
-        List<UserProfile> topUsers = userProfileRepository.findAll(
-                PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "xpPoints"))
-        ).getContent();
+        return ResponseEntity.ok(leaderboardService.getTop(parseWindow(window), limit, currentUser.getId()));
+    }
 
-        // Convert to DTOs with rank
-        List<LeaderboardEntryDTO> leaderboard = new ArrayList<>();
-        for (int i = 0; i < topUsers.size(); i++) {
-            UserProfile userProfile = topUsers.get(i);
-            leaderboard.add(LeaderboardEntryDTO.builder()
-                    .userId(userProfile.getUser().getId())
-                    .fullName(userProfile.getUser().getFullName())
-                    .avatarUrl(userProfile.getAvatarUrl())
-                    .xpPoints(userProfile.getXpPoints())
-                    .streak(userProfile.getStreak())
-                    .rank(i + 1)
-                    .isCurrentUser(userProfile.getUser().getId().equals(currentUserId))
-                    .build());
-        }
+    @GetMapping("/page")
+    public ResponseEntity<LeaderboardPage> getLeaderboardPage(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "all") String window) {
 
-        return ResponseEntity.ok(leaderboard);
+        return ResponseEntity.ok(leaderboardService.getPage(parseWindow(window), cursor, limit, currentUser.getId()));
     }
 
     @GetMapping("/me")
     public ResponseEntity<List<LeaderboardEntryDTO>> getUserLeaderboardPosition(
-            @RequestHeader("Authorization") String token,
-            @RequestParam(defaultValue = "5") int range) {
-        
-        User currentUser = jwtUtils.getUserFromAccessToken(token);
-        UUID currentUserId = currentUser.getId();
-        
-        // Get all users sorted by XP
-        List<UserProfile> allUsers = userProfileRepository.findAll(
-                Sort.by(Sort.Direction.DESC, "xpPoints")
-        );
-        
-        // Find current user's position
-        int currentUserPosition = -1;
-        for (int i = 0; i < allUsers.size(); i++) {
-            if (allUsers.get(i).getId().equals(currentUserId)) {
-                currentUserPosition = i;
-                break;
-            }
-        }
-        
-        if (currentUserPosition == -1) {
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(defaultValue = "5") int range,
+            @RequestParam(defaultValue = "all") String window) {
+
+        List<LeaderboardEntryDTO> leaderboard = leaderboardService.getAround(parseWindow(window), currentUser.getId(), range);
+
+        if (leaderboard.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        
-        // Calculate range
-        int startIndex = Math.max(0, currentUserPosition - range);
-        int endIndex = Math.min(allUsers.size(), currentUserPosition + range + 1);
-        
-        // Get users in range
-        List<UserProfile> usersInRange = allUsers.subList(startIndex, endIndex);
-        
-        // Convert to DTOs with rank
-        List<LeaderboardEntryDTO> leaderboard = new ArrayList<>();
-        for (int i = 0; i < usersInRange.size(); i++) {
-            UserProfile user = usersInRange.get(i);
-            leaderboard.add(LeaderboardEntryDTO.builder()
-                    .userId(user.getId())
-                    .fullName(user.getUser().getFullName())
-                    .xpPoints(user.getXpPoints())
-                    .streak(user.getStreak())
-                    .rank(startIndex + i + 1)
-                    .isCurrentUser(user.getId().equals(currentUserId))
-                    .build());
-        }
-        
+
         return ResponseEntity.ok(leaderboard);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/friends")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getFriendsLeaderboard(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(defaultValue = "all") String window) {
+
+        return ResponseEntity.ok(leaderboardService.getFriends(parseWindow(window), currentUser.getId()));
+    }
+
+    private LeaderboardWindow parseWindow(String window) {
+        try {
+            return LeaderboardWindow.fromCode(window);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage());
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package com.backend.pandylingo.controller;
 
+import com.backend.pandylingo.dto.progress.CourseProgress;
 import com.backend.pandylingo.dto.progress.LessonProgress;
+import com.backend.pandylingo.dto.progress.LessonSessionResponse;
+import com.backend.pandylingo.dto.progress.ProgressHistoryPage;
+import com.backend.pandylingo.dto.progress.ProgressSyncRequest;
+import com.backend.pandylingo.dto.progress.ProgressSyncResponse;
 import com.backend.pandylingo.dto.progress.UserProgressResponse;
+import com.backend.pandylingo.model.Difficulty;
+import com.backend.pandylingo.model.Language;
+import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.model.UserProgress;
-import com.backend.pandylingo.security.JwtUtils;
-import com.backend.pandylingo.security.UserDetailsServiceImpl;
+import com.backend.pandylingo.service.IdempotencyCache;
 import com.backend.pandylingo.service.LessonService;
+import com.backend.pandylingo.service.LessonSessionService;
+import com.backend.pandylingo.service.ProgressHistoryService;
+import com.backend.pandylingo.service.ProgressSyncService;
 import com.backend.pandylingo.service.ProgressService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -21,26 +36,66 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProgressController {
     private final ProgressService progressService;
-    private final JwtUtils jwtUtils;
     private final LessonService lessonService; // Needed for lesson progress. Do that later
+    private final LessonSessionService lessonSessionService;
+    private final ProgressSyncService progressSyncService;
+    private final ProgressHistoryService progressHistoryService;
+    private final IdempotencyCache idempotencyCache;
 
     @PostMapping("/submit")
     public ResponseEntity<UserProgressResponse> submitExercise(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @RequestParam UUID exerciseId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody Map<String, String> request) {
 
-        UUID userId = getUserIdFromToken(token);
+        UUID userId = currentUser.getId();
         String answer = request.get("answer");
 
-        UserProgress progress = progressService.submitExercise(userId, exerciseId, answer);
-        return ResponseEntity.ok(mapToResponse(progress));
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(mapToResponse(progressService.submitExercise(userId, exerciseId, answer)));
+        }
+        // Retries with the same key replay the first result instead of submitting again
+        return ResponseEntity.ok(idempotencyCache.execute(userId, idempotencyKey, exerciseId + ":" + answer,
+                UserProgressResponse.class,
+                () -> mapToResponse(progressService.submitExercise(userId, exerciseId, answer))));
+    }
+
+    @PostMapping("/sync")
+    public ResponseEntity<ProgressSyncResponse> syncProgress(
+            @AuthenticationPrincipal User currentUser,
+            @RequestBody ProgressSyncRequest request) {
+        return ResponseEntity.ok(progressSyncService.sync(currentUser.getId(), request));
+    }
+
+    @PostMapping("/sessions")
+    public ResponseEntity<LessonSessionResponse> startLessonSession(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam UUID lessonId) {
+        return ResponseEntity.ok(lessonSessionService.start(currentUser.getId(), lessonId));
+    }
+
+    @PostMapping("/sessions/{sessionId}/answer")
+    public ResponseEntity<UserProgressResponse> answerInSession(
+            @AuthenticationPrincipal User currentUser,
+            @PathVariable UUID sessionId,
+            @RequestParam UUID exerciseId,
+            @RequestBody Map<String, String> request) {
+        String answer = request.get("answer");
+        return ResponseEntity.ok(lessonSessionService.answer(currentUser.getId(), sessionId, exerciseId, answer));
+    }
+
+    @PostMapping("/sessions/{sessionId}/complete")
+    public ResponseEntity<LessonSessionResponse> completeLessonSession(
+            @AuthenticationPrincipal User currentUser,
+            @PathVariable UUID sessionId) {
+        return ResponseEntity.ok(lessonSessionService.complete(currentUser.getId(), sessionId));
     }
 
     @GetMapping
     public ResponseEntity<List<UserProgressResponse>> getUserProgress(
-            @RequestHeader("Authorization") String token) {
-        UUID userId = getUserIdFromToken(token);
+            @AuthenticationPrincipal User currentUser) {
+        UUID userId = currentUser.getId();
         List<UserProgress> progressList = progressService.getUserProgress(userId);
 
         List<UserProgressResponse> response = progressList.stream()
@@ -50,17 +105,44 @@ public class ProgressController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/history")
+    public ResponseEntity<ProgressHistoryPage> getProgressHistory(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(required = false) UUID lessonId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(progressHistoryService.getPage(currentUser.getId(), lessonId, from, to, cursor, limit));
+    }
+
+    @GetMapping(value = "/history/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamProgressHistory(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam(required = false) UUID lessonId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        UUID userId = currentUser.getId();
+        StreamingResponseBody body = out -> progressHistoryService.stream(userId, lessonId, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/lesson/{lessonId}")
     public ResponseEntity<LessonProgress> getLessonProgress(
-            @RequestHeader("Authorization") String token,
+            @AuthenticationPrincipal User currentUser,
             @PathVariable UUID lessonId) {
-        UUID userId = getUserIdFromToken(token);
+        UUID userId = currentUser.getId();
         return ResponseEntity.ok(progressService.getLessonProgress(userId, lessonId));
     }
 
-    private UUID getUserIdFromToken(String token) {
-        String jwt = token.substring(7);
-        return jwtUtils.getUserIdFromAccessToken(jwt);
+    @GetMapping("/course")
+    public ResponseEntity<CourseProgress> getCourseProgress(
+            @AuthenticationPrincipal User currentUser,
+            @RequestParam Language language,
+            @RequestParam Difficulty difficulty) {
+        return ResponseEntity.ok(progressService.getCourseProgress(currentUser.getId(), language, difficulty));
     }
 
     private UserProgressResponse mapToResponse(UserProgress progress) {
@@ -71,6 +153,7 @@ public class ProgressController {
                 .question(progress.getExercise().getQuestion())
                 .completed(progress.isCompleted())
                 .correct(progress.isCorrect())
+                .outcome(progress.getOutcome())
                 .completedAt(progress.getCompletedAt())
                 .userAnswer(progress.getUserAnswer())
                 .xpEarned(progress.getXpEarned())
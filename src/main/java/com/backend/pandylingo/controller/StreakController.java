@@ -3,10 +3,14 @@ package com.backend.pandylingo.controller;
 import com.backend.pandylingo.dto.user.StreakDTO;
 import com.backend.pandylingo.exception.NotFoundException;
 import com.backend.pandylingo.model.User;
+import com.backend.pandylingo.repository.UserProfileRepository;
 import com.backend.pandylingo.repository.UserRepository;
-import com.backend.pandylingo.security.JwtUtils;
+import com.backend.pandylingo.security.UserPrincipalCache;
+import com.backend.pandylingo.service.HeartService;
+import com.backend.pandylingo.service.LeaderboardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -18,11 +22,14 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class StreakController {
     private final UserRepository userRepository;
-    private final JwtUtils jwtUtils;
+    private final UserProfileRepository userProfileRepository;
+    private final UserPrincipalCache userCache;
+    private final LeaderboardService leaderboardService;
+    private final HeartService heartService;
 
     @GetMapping
-    public ResponseEntity<StreakDTO> getStreak(@RequestHeader("Authorization") String token) {
-        Optional<User> userOptional = userRepository.findByIdWithProfile(jwtUtils.getUserIdFromAccessToken(token));
+    public ResponseEntity<StreakDTO> getStreak(@AuthenticationPrincipal User currentUser) {
+        Optional<User> userOptional = userRepository.findByIdWithProfile(currentUser.getId());
 
         if (userOptional.isEmpty()) {
             throw new NotFoundException("User not found");
@@ -30,8 +37,9 @@ public class StreakController {
 
         User user = userOptional.get();
 
-        LocalDate today = LocalDate.now();
-        LocalDate lastUpdate = user.getUserProfile().getLastStreakUpdate().toLocalDate();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = user.getUserProfile().localDate(now);
+        LocalDate lastUpdate = user.getUserProfile().localDate(user.getUserProfile().getLastStreakUpdate());
         boolean practicedToday = lastUpdate.equals(today);
         
         StreakDTO streakDTO = StreakDTO.builder()
@@ -39,54 +47,48 @@ public class StreakController {
                 .lastStreakUpdate(user.getUserProfile().getLastStreakUpdate())
                 .streakFreezeCount(user.getUserProfile().getStreakFreezeCount())
                 .practicedToday(practicedToday)
+                .timeZone(user.getUserProfile().zone().getId())
+                .hearts(heartService.effectiveHearts(user.getUserProfile(), now))
+                .nextHeartAt(heartService.nextHeartAt(user.getUserProfile(), now))
                 .build();
         
         return ResponseEntity.ok(streakDTO);
     }
     
     @PostMapping("/freeze")
-    public ResponseEntity<?> useStreakFreeze(@RequestHeader("Authorization") String token) {
-        Optional<User> userOptional = userRepository.findByIdWithProfile(jwtUtils.getUserIdFromAccessToken(token));
-
-        if (userOptional.isEmpty()) {
+    public ResponseEntity<?> useStreakFreeze(@AuthenticationPrincipal User currentUser) {
+        if (!userRepository.existsById(currentUser.getId())) {
             throw new NotFoundException("User not found");
         }
 
-        User user = userOptional.get();
-
-        // Check if user has streak freezes
-        if (user.getUserProfile().getStreakFreezeCount() <= 0) {
+        // Use a streak freeze and update last streak update to today to maintain streak,
+        // only if one is available at the moment of the update
+        if (userProfileRepository.useStreakFreeze(currentUser.getId(), LocalDateTime.now()) == 0) {
             return ResponseEntity.badRequest().body("No streak freezes available");
         }
-        
-        // Use a streak freeze
-        user.getUserProfile().setStreakFreezeCount(user.getUserProfile().getStreakFreezeCount() - 1);
-        
-        // Update last streak update to today to maintain streak
-        user.getUserProfile().setLastStreakUpdate(LocalDateTime.now());
-        
-        userRepository.save(user);
+
+        userCache.invalidate(currentUser.getId());
         
         return ResponseEntity.ok().build();
     }
     
     @PostMapping("/buy-freeze")
-    public ResponseEntity<?> buyStreakFreeze(@RequestHeader("Authorization") String token) {
-        User user = jwtUtils.getUserFromAccessToken(token);
-        
+    public ResponseEntity<?> buyStreakFreeze(@AuthenticationPrincipal User currentUser) {
         // Cost of a streak freeze in XP
         final int FREEZE_COST = 200;
-        
-        // Check if user has enough XP
-        if (user.getUserProfile().getXpPoints() < FREEZE_COST) {
+
+        // Deduct XP and add streak freeze in one statement, only if the user has enough XP
+        if (userProfileRepository.buyStreakFreeze(currentUser.getId(), FREEZE_COST) == 0) {
+            if (!userRepository.existsById(currentUser.getId())) {
+                throw new NotFoundException("User not found");
+            }
             return ResponseEntity.badRequest().body("Not enough XP to buy a streak freeze");
         }
-        
-        // Deduct XP and add streak freeze
-        user.getUserProfile().setXpPoints(user.getUserProfile().getXpPoints() - FREEZE_COST);
-        user.getUserProfile().setStreakFreezeCount(user.getUserProfile().getStreakFreezeCount() + 1);
-        
-        userRepository.save(user);
+
+        User user = userRepository.findByIdWithProfile(currentUser.getId())
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        userCache.invalidate(user);
+        leaderboardService.update(user.getUserProfile());
         
         return ResponseEntity.ok().build();
     }
@@ -2,6 +2,7 @@ package com.backend.pandylingo.controller;
 
 import com.backend.pandylingo.dto.user.GetUserProfileResponse;
 import com.backend.pandylingo.dto.user.UpdateAvatarRequest;
+import com.backend.pandylingo.dto.user.UpdateTimeZoneRequest;
 import com.backend.pandylingo.exception.BadRequestException;
 import com.backend.pandylingo.exception.InternalServerErrorException;
 import com.backend.pandylingo.exception.NotFoundException;
@@ -11,6 +12,9 @@ import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.model.UserProfile;
 import com.backend.pandylingo.repository.UserProfileRepository;
 import com.backend.pandylingo.repository.UserRepository;
+import com.backend.pandylingo.security.UserPrincipalCache;
+import com.backend.pandylingo.service.HeartService;
+import com.backend.pandylingo.service.LeaderboardService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -18,6 +22,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.logging.Logger;
 
@@ -27,18 +34,27 @@ import java.util.logging.Logger;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userCache;
+    private final LeaderboardService leaderboardService;
+    private final HeartService heartService;
 
     @PutMapping("/avatar")
     public ResponseEntity<String> updateAvatar(
-            @AuthenticationPrincipal User user,
+            @AuthenticationPrincipal User currentUser,
             @RequestBody UpdateAvatarRequest request) {
         try {
             if (request.getAvatarUrl() == null || request.getAvatarUrl().isBlank()) {
                 throw new BadRequestException("Avatar URL is required");
             }
 
+            // The principal is built from token claims, so load the managed entity before saving
+            User user = userRepository.findByIdWithProfile(currentUser.getId())
+                    .orElseThrow(() -> new NotFoundException("User not found"));
+
             user.getUserProfile().setAvatarUrl(request.getAvatarUrl());
             userRepository.save(user);
+            userCache.invalidate(user);
+            leaderboardService.update(user.getUserProfile());
 
             return ResponseEntity.ok("Avatar updated successfully");
         } catch (DataAccessException ex) {
@@ -46,6 +62,35 @@ public class UserController {
         }
     }
 
+    @PutMapping("/time-zone")
+    public ResponseEntity<String> updateTimeZone(
+            @AuthenticationPrincipal User currentUser,
+            @RequestBody UpdateTimeZoneRequest request) {
+        if (request.getTimeZone() == null || request.getTimeZone().isBlank()) {
+            throw new BadRequestException("Time zone is required");
+        }
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(request.getTimeZone());
+        } catch (DateTimeException ex) {
+            throw new BadRequestException("Unknown time zone: " + request.getTimeZone());
+        }
+
+        try {
+            User user = userRepository.findByIdWithProfile(currentUser.getId())
+                    .orElseThrow(() -> new NotFoundException("User not found"));
+
+            // Takes effect from the next practice and the zone's next rollover
+            user.getUserProfile().setTimeZone(zone.getId());
+            userRepository.save(user);
+            userCache.invalidate(user);
+
+            return ResponseEntity.ok("Time zone updated successfully");
+        } catch (DataAccessException ex) {
+            throw new InternalServerErrorException("Failed to update time zone");
+        }
+    }
+
     @GetMapping("/profile")
     public ResponseEntity<GetUserProfileResponse> getUserProfile(UUID userId) {
         Logger logger = Logger.getLogger(UserController.class.getName());
@@ -59,6 +104,7 @@ public class UserController {
             User user = optionalUser.get();
             logger.info(user.getUserProfile().getLanguageProficiencies().toString());
 
+            LocalDateTime now = LocalDateTime.now();
             GetUserProfileResponse response = GetUserProfileResponse.builder()
                     .email(user.getEmail())
                     .name(user.getFullName())
@@ -66,6 +112,8 @@ public class UserController {
                     .lessonsCompleted(25)
                     .totalXp(user.getUserProfile().getXpPoints())
                     .streak(user.getUserProfile().getStreak())
+                    .hearts(heartService.effectiveHearts(user.getUserProfile(), now))
+                    .nextHeartAt(heartService.nextHeartAt(user.getUserProfile(), now))
                     .build();
 
             return ResponseEntity.ok(response);
@@ -109,7 +157,10 @@ public class UserController {
             UserProfile userProfile = user.getUserProfile();
             userProfile.setXpPoints(userProfile.getXpPoints() + xp);
             userRepository.save(user);
+            userCache.invalidate(user);
+            leaderboardService.update(userProfile);
 
+            LocalDateTime now = LocalDateTime.now();
             GetUserProfileResponse response = GetUserProfileResponse.builder()
                     .email(user.getEmail())
                     .name(user.getFullName())
@@ -117,6 +168,8 @@ public class UserController {
                     .lessonsCompleted(25)
                     .totalXp(user.getUserProfile().getXpPoints())
                     .streak(user.getUserProfile().getStreak())
+                    .hearts(heartService.effectiveHearts(user.getUserProfile(), now))
+                    .nextHeartAt(heartService.nextHeartAt(user.getUserProfile(), now))
                     .build();
 
             return ResponseEntity.ok(response);
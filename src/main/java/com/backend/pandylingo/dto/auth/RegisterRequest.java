@@ -32,4 +32,7 @@ public class RegisterRequest {
 
     @NotBlank
     private Role role;
+
+    // IANA zone id such as "Europe/Madrid"; the server's zone when omitted
+    private String timeZone;
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ public class ExerciseDTO {
     private String correctAnswer;
 
     // Type-specific fields
+    private List<String> acceptedAnswers;  // For translation
     private List<String> options;          // For multiple choice
     private Map<String, String> pairs;     // For matching
 }
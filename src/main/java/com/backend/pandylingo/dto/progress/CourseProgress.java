@@ -3,6 +3,8 @@ package com.backend.pandylingo.dto.progress;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @Builder
 public class CourseProgress {
@@ -12,4 +14,5 @@ public class CourseProgress {
     private int totalExercises;
     private double completionPercentage;
     private int xpEarned;
+    private List<LessonProgress> lessons;
 }
@@ -18,6 +18,7 @@ public class LessonProgress {
     private int correctExercises;
     private int percentComplete;
     private int percentCorrect;
+    private int xpEarned;
 
     // For backward compatibility
     public LessonProgress(int completedExercises, int totalExercises, double completionPercentage) {
@@ -0,0 +1,24 @@
+package com.backend.pandylingo.dto.progress;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonSessionResponse {
+    private UUID sessionId;
+    private UUID lessonId;
+    private List<UUID> pendingExerciseIds;
+    private int answeredExercises;
+    private int correctExercises;
+    private int xpEarned;
+    private int heartsUsed;
+    private int heartsRemaining;
+}
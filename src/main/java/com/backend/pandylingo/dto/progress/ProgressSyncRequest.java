@@ -0,0 +1,28 @@
+package com.backend.pandylingo.dto.progress;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressSyncRequest {
+    private List<Item> answers = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        // Generated by the client; resending the same attempt is a no-op
+        private UUID attemptId;
+        private UUID exerciseId;
+        private String answer;
+        private LocalDateTime answeredAt;
+    }
+}
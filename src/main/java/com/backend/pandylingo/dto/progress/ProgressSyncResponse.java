@@ -0,0 +1,46 @@
+package com.backend.pandylingo.dto.progress;
+
+import com.backend.pandylingo.model.AnswerOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressSyncResponse {
+    private List<ItemResult> results;
+    private int xpEarned;
+    private int heartsUsed;
+
+    public enum Status {
+        APPLIED,
+        // Attempt id already synced; the stored result is returned
+        DUPLICATE,
+        ALREADY_COMPLETED,
+        UNKNOWN_EXERCISE,
+        NOT_ENOUGH_HEARTS,
+        // Answered longer ago than the offline window (progress.sync.max-offline-hours)
+        EXPIRED,
+        INVALID
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private UUID attemptId;
+        private UUID exerciseId;
+        private Status status;
+        private boolean correct;
+        private AnswerOutcome outcome;
+        private int xpEarned;
+        private int heartsUsed;
+    }
+}
@@ -1,13 +1,18 @@
 package com.backend.pandylingo.dto.progress;
 
+import com.backend.pandylingo.model.AnswerOutcome;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class UserProgressResponse  {
     private UUID id;
     private UUID exerciseId;
@@ -15,8 +20,17 @@ public class UserProgressResponse  {
     private String question;
     private boolean completed;
     private boolean correct;
+    private AnswerOutcome outcome;
     private LocalDateTime completedAt;
     private String userAnswer;
     private int xpEarned;
     private int heartsUsed;
-}
\ No newline at end of file
+
+    // Constructor expression target for history queries, which select the exercise type with TYPE()
+    public UserProgressResponse(UUID id, UUID exerciseId, Class<?> exerciseType, String question,
+                                boolean completed, boolean correct, AnswerOutcome outcome,
+                                LocalDateTime completedAt, String userAnswer, int xpEarned, int heartsUsed) {
+        this(id, exerciseId, exerciseType.getSimpleName(), question, completed, correct, outcome, completedAt,
+                userAnswer, xpEarned, heartsUsed);
+    }
+}
@@ -3,6 +3,8 @@ package com.backend.pandylingo.dto.user;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 public class GetUserProfileResponse {
@@ -13,6 +15,9 @@ public class GetUserProfileResponse {
     private int streak;
     private int totalXp;
     private int lessonsCompleted;
+    private int hearts;
+    // Null when hearts are full
+    private LocalDateTime nextHeartAt;
 
 //  private List<Map<Language, PercentComplete>> languageCompletions;
 }
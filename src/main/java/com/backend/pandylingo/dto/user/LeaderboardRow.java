@@ -0,0 +1,6 @@
+package com.backend.pandylingo.dto.user;
+
+import java.util.UUID;
+
+// Flat projection of a ranked user, loaded with users.full_name in a single query
+public record LeaderboardRow(UUID userId, String fullName, String avatarUrl, int xpPoints, int streak) {}
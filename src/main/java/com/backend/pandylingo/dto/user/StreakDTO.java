@@ -16,4 +16,9 @@ public class StreakDTO {
     private LocalDateTime lastStreakUpdate;
     private int streakFreezeCount;
     private boolean practicedToday;
+    // Days, and so practicedToday, follow this zone
+    private String timeZone;
+    private int hearts;
+    // Null when hearts are full
+    private LocalDateTime nextHeartAt;
 }
\ No newline at end of file
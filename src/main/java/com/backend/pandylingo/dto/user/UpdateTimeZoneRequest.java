@@ -0,0 +1,8 @@
+package com.backend.pandylingo.dto.user;
+
+import lombok.Data;
+
+@Data
+public class UpdateTimeZoneRequest {
+    private String timeZone;
+}
@@ -0,0 +1,10 @@
+package com.backend.pandylingo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// 503 Service Unavailable
+public class ServiceUnavailableException extends HttpException {
+    public ServiceUnavailableException(String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+    }
+}
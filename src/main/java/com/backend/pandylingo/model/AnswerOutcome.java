@@ -0,0 +1,8 @@
+package com.backend.pandylingo.model;
+
+public enum AnswerOutcome {
+    CORRECT,
+    // Within the typo tolerance of a correct answer: partial xp, no hearts spent
+    ALMOST_CORRECT,
+    INCORRECT
+}
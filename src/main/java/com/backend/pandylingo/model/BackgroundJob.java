@@ -0,0 +1,68 @@
+package com.backend.pandylingo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Deferred work waiting for, or being run by, a worker (see JobQueue and JobWorkerPool).
+ * Times come from the database clock.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "jobs", indexes = @Index(name = "idx_jobs_status_run_at", columnList = "status, run_at"))
+public class BackgroundJob {
+    @Id
+    @Column(columnDefinition = "UUID")
+    private UUID id;
+
+    // Selects the JobHandler
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    // Handler payload as JSON
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private JobStatus status;
+
+    // Claims so far, including one that is running
+    private int attempts;
+
+    @Column(name = "max_attempts")
+    private int maxAttempts;
+
+    // Not claimed before this; pushed back by retries
+    @Column(name = "run_at", nullable = false)
+    private LocalDateTime runAt;
+
+    // Set while running; the claim is only valid with this token and until locked_until
+    @Column(name = "lock_token", columnDefinition = "UUID")
+    private UUID lockToken;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    // At most one unfinished job per key
+    @Column(name = "dedupe_key", unique = true)
+    private String dedupeKey;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
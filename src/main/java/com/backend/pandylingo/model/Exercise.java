@@ -55,6 +55,4 @@ public abstract class Exercise {
 
     @Column(name = "correct_answer", nullable = false)
     protected String correctAnswer;
-
-    public abstract boolean validateAnswer(String answer);
 }
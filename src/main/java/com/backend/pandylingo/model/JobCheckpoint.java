@@ -0,0 +1,53 @@
+package com.backend.pandylingo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * How far one partition of a chunked batch job got in its current run. Written in the same
+ * transaction as each chunk, so a restarted job continues after the last committed chunk.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(JobCheckpoint.Key.class)
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Id
+    @Column(name = "partition_index")
+    private int partitionIndex;
+
+    // Identifies the run, e.g. the day being rolled over; a different key starts the partition over
+    @Column(name = "run_key", nullable = false)
+    private String runKey;
+
+    // First id of the next chunk
+    @Column(name = "resume_from", columnDefinition = "UUID", nullable = false)
+    private UUID resumeFrom;
+
+    private boolean completed;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String jobName;
+        private int partitionIndex;
+    }
+}
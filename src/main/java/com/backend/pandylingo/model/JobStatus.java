@@ -0,0 +1,8 @@
+package com.backend.pandylingo.model;
+
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    // Out of attempts; kept for inspection. Jobs that succeed are deleted.
+    FAILED
+}
@@ -0,0 +1,40 @@
+package com.backend.pandylingo.model;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+
+@Getter
+public enum LeaderboardWindow {
+    WEEK("week"),
+    MONTH("month"),
+    ALL("all");
+
+    private final String code;
+
+    LeaderboardWindow(String code) {
+        this.code = code;
+    }
+
+    public static LeaderboardWindow fromCode(String code) {
+        for (LeaderboardWindow window : values()) {
+            if (window.code.equalsIgnoreCase(code)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("Invalid leaderboard window: " + code);
+    }
+
+    // Bucket key for the period containing the date, e.g. "2026-W42" or "2026-10"
+    public String periodKey(LocalDate date) {
+        return switch (this) {
+            case WEEK -> "%d-W%02d".formatted(
+                    date.get(IsoFields.WEEK_BASED_YEAR),
+                    date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH -> YearMonth.from(date).toString();
+            case ALL -> "all";
+        };
+    }
+}
@@ -46,4 +46,9 @@ public class Lesson {
     private Difficulty difficulty;
 
     private int xpReward;
+
+    // Maintained by ExerciseService through LessonRepository.adjustExerciseCount, never by entity saves
+    @Column(name = "exercise_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int exerciseCount;
 }
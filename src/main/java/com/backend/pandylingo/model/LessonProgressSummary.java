@@ -0,0 +1,45 @@
+package com.backend.pandylingo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Completed and correct exercise counts and earned xp of one user in one lesson, kept up to date in the
+ * same transaction as every write to user_progress so lesson progress is a key lookup.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(LessonProgressSummary.Key.class)
+@Table(name = "lesson_progress_summary")
+public class LessonProgressSummary {
+    @Id
+    @Column(name = "user_id", columnDefinition = "UUID")
+    private UUID userId;
+
+    @Id
+    @Column(name = "lesson_id", columnDefinition = "UUID")
+    private UUID lessonId;
+
+    private int completed;
+    private int correct;
+
+    @Column(name = "xp_earned")
+    private int xpEarned;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private UUID lessonId;
+    }
+}
@@ -6,10 +6,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.SuperBuilder;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Entity
 @DiscriminatorValue("matching")
@@ -26,21 +24,4 @@ public class MatchingExercise extends Exercise {
     private Map<String, String> pairs = new HashMap<>();
 
     public MatchingExercise() {}
-
-    @Override
-    public boolean validateAnswer(String answer) {
-        Map<String, String> answerMap = parseAnswer(answer);
-        return correctAnswer != null && correctAnswer.equalsIgnoreCase(answer.trim());
-    }
-
-    private Map<String, String> parseAnswer(String answer) {
-        // Utility to parse the incoming answer string (e.g., "key1:value1,key2:value2") into a map
-        return Arrays.stream(answer.split(","))
-                .map(pair -> pair.split(":"))
-                .filter(parts -> parts.length == 2)
-                .collect(Collectors.toMap(
-                        parts -> parts[0].trim(),
-                        parts -> parts[1].trim()
-                ));
-    }
 }
@@ -23,10 +23,4 @@ public class MultipleChoiceExercise extends Exercise {
     private List<String> options = new ArrayList<>();
 
     public MultipleChoiceExercise() {}
-
-    @Override
-    public boolean validateAnswer(String answer) {
-        // Validation uses the inherited 'correctAnswer' field
-        return correctAnswer != null && correctAnswer.equalsIgnoreCase(answer.trim());
-    }
 }
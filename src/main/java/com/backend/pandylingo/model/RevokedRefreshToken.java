@@ -0,0 +1,33 @@
+package com.backend.pandylingo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "revoked_refresh_tokens", indexes = @Index(name = "idx_revoked_refresh_tokens_expires_at", columnList = "expires_at"))
+public class RevokedRefreshToken {
+    // The refresh token's jti claim
+    @Id
+    @Column(columnDefinition = "UUID")
+    private UUID jti;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    // Rows can be compacted away once the token itself would have expired
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -1,11 +1,14 @@
 package com.backend.pandylingo.model;
 
-import jakarta.persistence.DiscriminatorValue;
-import jakarta.persistence.Entity;
+import jakarta.persistence.*;
+import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.SuperBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Entity
 @DiscriminatorValue("translation")
 @Data
@@ -13,11 +16,12 @@ import lombok.experimental.SuperBuilder;
 @SuperBuilder
 public class TranslationExercise extends Exercise {
 
-    public TranslationExercise() {}
+    // Other translations graded as correct besides 'correctAnswer'
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "translation_accepted_answers", joinColumns = @JoinColumn(name = "exercise_id"))
+    @Column(name = "answer")
+    private List<String> acceptedAnswers = new ArrayList<>();
 
-    @Override
-    public boolean validateAnswer(String answer) {
-        // Validation uses the inherited 'correctAnswer' field
-        return correctAnswer != null && correctAnswer.equalsIgnoreCase(answer.trim());
-    }
+    public TranslationExercise() {}
 }
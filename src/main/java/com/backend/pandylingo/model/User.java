@@ -39,6 +39,10 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    // Bumped whenever previously issued access tokens must stop being trusted (role or password change)
+    @Column(name = "token_epoch", nullable = false)
+    private int tokenEpoch;
+
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return Collections.singletonList(role);
     }
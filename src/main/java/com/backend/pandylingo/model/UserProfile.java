@@ -7,7 +7,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
 import java.util.UUID;
 
@@ -16,7 +18,11 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "user_profiles")
+@Table(name = "user_profiles", indexes = {
+        @Index(name = "idx_user_profiles_xp_user", columnList = "xp_points DESC, user_id"),
+        // Streak rollover walks one time zone cohort at a time in id order
+        @Index(name = "idx_user_profiles_time_zone_id", columnList = "time_zone, id")
+})
 public class UserProfile {
 
     @Id
@@ -43,6 +49,11 @@ public class UserProfile {
     @Column(name = "streak_freeze_count")
     private int streakFreezeCount;
 
+    // IANA zone id; streak days start at the user's local midnight
+    @Column(name = "time_zone", length = 64)
+    private String timeZone;
+
+    // Stored count; HeartService adds the hearts regenerated since lastHeartRefill
     private int hearts;
 
     @Column(name = "last_heart_refill")
@@ -73,23 +84,22 @@ public class UserProfile {
             lastStreakUpdate = LocalDateTime.now();
         }
 
+        if (timeZone == null) {
+            timeZone = ZoneId.systemDefault().getId();
+        }
+
         // Initialize streak freeze count
         if (streakFreezeCount < 0) {
             streakFreezeCount = 0;
         }
     }
 
-    @PreUpdate
-    public void onUpdate() {
-        // Refill hearts if it's been more than 5 hours since last refill
-        if (lastHeartRefill == null ||
-                lastHeartRefill.isBefore(LocalDateTime.now().minusHours(5))) {
-
-            if (hearts < 5) {
-                hearts = 5;
-                lastHeartRefill = LocalDateTime.now();
-            }
-        }
+    public ZoneId zone() {
+        return timeZone == null ? ZoneId.systemDefault() : ZoneId.of(timeZone);
     }
 
+    // The user's calendar day at a server-local timestamp
+    public LocalDate localDate(LocalDateTime serverTime) {
+        return serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone()).toLocalDate();
+    }
 }
@@ -14,7 +14,12 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "user_progress")
+@Table(name = "user_progress",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_user_progress_user_exercise", columnNames = {"user_id", "exercise_id"}),
+                @UniqueConstraint(name = "uk_user_progress_attempt", columnNames = "attempt_id")
+        },
+        indexes = @Index(name = "idx_user_progress_user_completed_at", columnList = "user_id, completed_at DESC, id DESC"))
 public class UserProgress {
     @Id
     @Column(columnDefinition = "UUID")
@@ -48,4 +53,14 @@ public class UserProgress {
 
     private int xpEarned;
     private int heartsUsed;
+
+    // Null for answers recorded before outcomes were stored; 'correct' is set for both
+    // CORRECT and ALMOST_CORRECT
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AnswerOutcome outcome;
+
+    // Client-generated id of an offline attempt, used to make sync retries idempotent
+    @Column(name = "attempt_id", columnDefinition = "UUID")
+    private UUID attemptId;
 }
@@ -0,0 +1,47 @@
+package com.backend.pandylingo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * XP earned by a user within one leaderboard period (an ISO week or a calendar month).
+ * A new period simply starts writing new rows, so rollover never rewrites existing data.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(XpBucket.Key.class)
+@Table(name = "xp_buckets", indexes = @Index(name = "idx_xp_buckets_period_xp", columnList = "period_type, period_key, xp DESC"))
+public class XpBucket {
+    @Id
+    @Column(name = "user_id", columnDefinition = "UUID")
+    private UUID userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period_type", columnDefinition = "VARCHAR(10)")
+    private LeaderboardWindow periodType;
+
+    @Id
+    @Column(name = "period_key", length = 10)
+    private String periodKey;
+
+    private int xp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID userId;
+        private LeaderboardWindow periodType;
+        private String periodKey;
+    }
+}
@@ -16,6 +16,11 @@ public interface FriendshipRepository extends JpaRepository<Friendship, UUID> {
     // Find all accepted friendships where the user is either the user or the friend
     @Query("SELECT f FROM Friendship f WHERE (f.user = ?1 OR f.friend = ?1) AND f.accepted = true")
     List<Friendship> findAllAcceptedByUser(User user);
+
+    // Ids of the other side of every accepted friendship, without loading either user
+    @Query("SELECT CASE WHEN f.user.id = ?1 THEN f.friend.id ELSE f.user.id END FROM Friendship f " +
+            "WHERE (f.user.id = ?1 OR f.friend.id = ?1) AND f.accepted = true")
+    List<UUID> findAcceptedFriendIds(UUID userId);
     
     // Find all pending friendships where the user is the friend (friend requests received)
     @Query("SELECT f FROM Friendship f WHERE f.friend = ?1 AND f.accepted = false")
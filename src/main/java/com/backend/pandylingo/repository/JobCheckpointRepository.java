@@ -0,0 +1,10 @@
+package com.backend.pandylingo.repository;
+
+import com.backend.pandylingo.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, JobCheckpoint.Key> {
+    List<JobCheckpoint> findByJobNameStartingWith(String prefix);
+}
@@ -0,0 +1,65 @@
+package com.backend.pandylingo.repository;
+
+import com.backend.pandylingo.model.LessonProgressSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface LessonProgressSummaryRepository
+        extends JpaRepository<LessonProgressSummary, LessonProgressSummary.Key> {
+
+    interface LessonProgressCounts {
+        UUID getLessonId();
+        int getTotalExercises();
+        int getCompleted();
+        int getCorrect();
+        int getXpEarned();
+    }
+
+    @Modifying
+    @Query(value = "INSERT INTO lesson_progress_summary (user_id, lesson_id, completed, correct, xp_earned) " +
+            "VALUES (:userId, :lessonId, :completed, :correct, :xp) " +
+            "ON CONFLICT (user_id, lesson_id) DO UPDATE SET " +
+            "completed = lesson_progress_summary.completed + EXCLUDED.completed, " +
+            "correct = lesson_progress_summary.correct + EXCLUDED.correct, " +
+            "xp_earned = lesson_progress_summary.xp_earned + EXCLUDED.xp_earned",
+            nativeQuery = true)
+    void increment(@Param("userId") UUID userId, @Param("lessonId") UUID lessonId,
+                   @Param("completed") int completed, @Param("correct") int correct, @Param("xp") int xp);
+
+    // Empty if the lesson does not exist; zero counts if the user has not started it
+    @Query(value = "SELECT l.id AS lessonId, l.exercise_count AS totalExercises, " +
+            "COALESCE(s.completed, 0) AS completed, COALESCE(s.correct, 0) AS correct, " +
+            "COALESCE(s.xp_earned, 0) AS xpEarned " +
+            "FROM lessons l LEFT JOIN lesson_progress_summary s ON s.lesson_id = l.id AND s.user_id = :userId " +
+            "WHERE l.id = :lessonId",
+            nativeQuery = true)
+    Optional<LessonProgressCounts> findLessonProgress(@Param("userId") UUID userId, @Param("lessonId") UUID lessonId);
+
+    // Every lesson of a course, with the user's counts, in one statement
+    @Query(value = "SELECT l.id AS lessonId, l.exercise_count AS totalExercises, " +
+            "COALESCE(s.completed, 0) AS completed, COALESCE(s.correct, 0) AS correct, " +
+            "COALESCE(s.xp_earned, 0) AS xpEarned " +
+            "FROM lessons l LEFT JOIN lesson_progress_summary s ON s.lesson_id = l.id AND s.user_id = :userId " +
+            "WHERE l.language = :language AND l.difficulty = :difficulty " +
+            "ORDER BY l.title",
+            nativeQuery = true)
+    List<LessonProgressCounts> findCourseProgress(@Param("userId") UUID userId, @Param("language") String language,
+                                                 @Param("difficulty") String difficulty);
+
+    // Takes an exercise's completions out of the counts before the exercise is deleted
+    @Modifying
+    @Query(value = "UPDATE lesson_progress_summary s SET " +
+            "completed = s.completed - 1, correct = s.correct - CASE WHEN up.correct THEN 1 ELSE 0 END, " +
+            "xp_earned = s.xp_earned - up.xp_earned " +
+            "FROM user_progress up JOIN user_profiles p ON p.id = up.user_id " +
+            "WHERE up.exercise_id = :exerciseId AND up.completed = true " +
+            "AND s.user_id = p.user_id AND s.lesson_id = :lessonId",
+            nativeQuery = true)
+    int removeExercise(@Param("exerciseId") UUID exerciseId, @Param("lessonId") UUID lessonId);
+}
@@ -4,12 +4,35 @@ import com.backend.pandylingo.model.Difficulty;
 import com.backend.pandylingo.model.Language;
 import com.backend.pandylingo.model.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface LessonRepository extends JpaRepository<Lesson, UUID> {
     List<Lesson> findAllByLanguageAndDifficulty(Language language, Difficulty difficulty);
 
     boolean existsByTitle(String title);
+
+    @Query("SELECT l.language FROM Lesson l WHERE l.id = :id")
+    Optional<Language> findLanguageById(@Param("id") UUID id);
+
+    @Query("SELECT l.exerciseCount FROM Lesson l WHERE l.id = :id")
+    Optional<Integer> findExerciseCount(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE Lesson l SET l.exerciseCount = l.exerciseCount + :delta WHERE l.id = :id")
+    int adjustExerciseCount(@Param("id") UUID id, @Param("delta") int delta);
+
+    // Resets every lesson's count from the exercises table
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE lessons l SET exercise_count = " +
+            "(SELECT COUNT(*) FROM exercises e WHERE e.lesson_id = l.id)",
+            nativeQuery = true)
+    int recountExercises();
 }
@@ -0,0 +1,32 @@
+package com.backend.pandylingo.repository;
+
+import com.backend.pandylingo.model.RevokedRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface RevokedRefreshTokenRepository extends JpaRepository<RevokedRefreshToken, UUID> {
+
+    // Returns 0 when the jti was already revoked, which means the refresh token is being reused
+    @Modifying
+    @Query(value = "INSERT INTO revoked_refresh_tokens (jti, user_id, expires_at, revoked_at) " +
+            "VALUES (:jti, :userId, :expiresAt, :revokedAt) ON CONFLICT (jti) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("jti") UUID jti,
+            @Param("userId") UUID userId,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("revokedAt") LocalDateTime revokedAt);
+
+    @Query("SELECT r.jti FROM RevokedRefreshToken r WHERE r.expiresAt > :now")
+    List<UUID> findActiveJtis(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedRefreshToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
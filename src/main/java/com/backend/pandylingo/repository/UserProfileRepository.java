@@ -1,21 +1,144 @@
 package com.backend.pandylingo.repository;
 
+import com.backend.pandylingo.dto.user.LeaderboardRow;
 import com.backend.pandylingo.model.Difficulty;
 import com.backend.pandylingo.model.Language;
 import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.model.UserProfile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserProfileRepository extends JpaRepository<UserProfile, UUID> {
-    List<UserProfile> findByHeartsLessThan(int i);
+    Optional<UserProfile> findByUserId(UUID userId);
+
+    // Counter updates are single conditional statements so concurrent requests from the same
+    // user neither lose increments nor hold a row lock across the whole request.
+    // A result of 0 means the condition did not hold.
+
+    // Hearts must be settled first (see HeartService). Spending from full starts the regeneration clock.
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile p SET p.hearts = p.hearts - :cost, p.xpPoints = p.xpPoints + :xp, " +
+            "p.lastHeartRefill = CASE WHEN p.hearts >= :maxHearts AND :cost > 0 THEN :now ELSE p.lastHeartRefill END " +
+            "WHERE p.id = :id AND p.hearts >= :cost")
+    int spendHeartsAndAddXp(@Param("id") UUID id, @Param("cost") int cost, @Param("xp") int xp,
+                            @Param("maxHearts") int maxHearts, @Param("now") LocalDateTime now);
+
+    // Compare-and-set on last_heart_refill, so regenerated hearts are credited once
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile p SET p.hearts = :hearts, p.lastHeartRefill = :refilledAt " +
+            "WHERE p.id = :id AND (p.lastHeartRefill = :previous OR p.lastHeartRefill IS NULL) AND p.hearts < :hearts")
+    int settleHearts(@Param("id") UUID id, @Param("previous") LocalDateTime previous, @Param("hearts") int hearts,
+                     @Param("refilledAt") LocalDateTime refilledAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile p SET p.xpPoints = p.xpPoints - :cost, p.streakFreezeCount = p.streakFreezeCount + 1 " +
+            "WHERE p.user.id = :userId AND p.xpPoints >= :cost")
+    int buyStreakFreeze(@Param("userId") UUID userId, @Param("cost") int cost);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile p SET p.streakFreezeCount = p.streakFreezeCount - 1, p.lastStreakUpdate = :now " +
+            "WHERE p.user.id = :userId AND p.streakFreezeCount > 0")
+    int useStreakFreeze(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // The streak updates below compare-and-set on last_streak_update, so when several
+    // submissions race on the first practice of the day only one of them moves the streak
+
+    @Modifying
+    @Query("UPDATE UserProfile p SET p.streak = p.streak + 1, p.lastStreakUpdate = :now " +
+            "WHERE p.id = :id AND p.lastStreakUpdate = :previous")
+    int extendStreak(@Param("id") UUID id, @Param("previous") LocalDateTime previous, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE UserProfile p SET p.streakFreezeCount = p.streakFreezeCount - 1, p.lastStreakUpdate = :now " +
+            "WHERE p.id = :id AND p.lastStreakUpdate = :previous AND p.streakFreezeCount > 0")
+    int keepStreakWithFreeze(@Param("id") UUID id, @Param("previous") LocalDateTime previous, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE UserProfile p SET p.streak = 1, p.lastStreakUpdate = :now " +
+            "WHERE p.id = :id AND p.lastStreakUpdate = :previous")
+    int restartStreak(@Param("id") UUID id, @Param("previous") LocalDateTime previous, @Param("now") LocalDateTime now);
+
+    // Sets the result of replaying several practice days at once, e.g. from an offline sync
+    @Modifying
+    @Query("UPDATE UserProfile p SET p.streak = :streak, p.streakFreezeCount = p.streakFreezeCount - :freezesUsed, " +
+            "p.lastStreakUpdate = :updatedAt " +
+            "WHERE p.id = :id AND p.lastStreakUpdate = :previous AND p.streakFreezeCount >= :freezesUsed")
+    int replayStreak(@Param("id") UUID id, @Param("previous") LocalDateTime previous, @Param("streak") int streak,
+                     @Param("freezesUsed") int freezesUsed, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Streak rollover, applied to one time zone cohort and id range [from, to) per chunk (see
+    // StreakRolloverService) and served by idx_user_profiles_time_zone_id. A lapsed streak spends
+    // one freeze per missed day: the freeze covers yesterday, so practicing today extends the
+    // streak and the next rollover only sees the row if it lapses again.
+
+    // Distinct zones as a loose index scan, one index probe per zone instead of reading every row
+    @Query(value = "WITH RECURSIVE zones AS (" +
+            "(SELECT time_zone FROM user_profiles WHERE time_zone IS NOT NULL ORDER BY time_zone LIMIT 1) " +
+            "UNION ALL SELECT (SELECT p.time_zone FROM user_profiles p WHERE p.time_zone > z.time_zone " +
+            "ORDER BY p.time_zone LIMIT 1) FROM zones z WHERE z.time_zone IS NOT NULL) " +
+            "SELECT time_zone FROM zones WHERE time_zone IS NOT NULL",
+            nativeQuery = true)
+    List<String> findTimeZones();
+
+    // Profiles created before time zones were stored keep following the server's zone
+    @Modifying
+    @Transactional
+    @Query("UPDATE UserProfile p SET p.timeZone = :zone WHERE p.timeZone IS NULL")
+    int assignDefaultTimeZone(@Param("zone") String zone);
+
+    // The first id at or after from that falls outside a chunk of the given size, if any
+    @Query(value = "SELECT id FROM user_profiles WHERE time_zone = :zone AND id >= :from AND id < :to " +
+            "ORDER BY id OFFSET :size LIMIT 1",
+            nativeQuery = true)
+    Optional<UUID> findChunkEnd(@Param("zone") String zone, @Param("from") UUID from, @Param("to") UUID to,
+                                @Param("size") int size);
+
+    @Modifying
+    @Query(value = "UPDATE user_profiles SET streak_freeze_count = streak_freeze_count - 1, " +
+            "last_streak_update = :coveredAt " +
+            "WHERE time_zone = :zone AND id >= :from AND id < :to AND last_streak_update < :cutoff " +
+            "AND streak > 0 AND streak_freeze_count > 0",
+            nativeQuery = true)
+    int consumeStreakFreezes(@Param("zone") String zone, @Param("from") UUID from, @Param("to") UUID to,
+                             @Param("cutoff") LocalDateTime cutoff, @Param("coveredAt") LocalDateTime coveredAt);
+
+    @Modifying
+    @Query(value = "UPDATE user_profiles SET streak = 0 " +
+            "WHERE time_zone = :zone AND id >= :from AND id < :to AND last_streak_update < :cutoff " +
+            "AND streak > 0 AND streak_freeze_count = 0",
+            nativeQuery = true)
+    int resetLapsedStreaks(@Param("zone") String zone, @Param("from") UUID from, @Param("to") UUID to,
+                           @Param("cutoff") LocalDateTime cutoff);
 
     @Query("SELECT u.languageProficiencies FROM UserProfile u WHERE  u.user.id = :id")
     List<Map<Language, Difficulty>> findUserLanguagesByUserId(@Param("id") UUID id);
+
+    // Keyset pages in ranking order, served by idx_user_profiles_xp_user
+    @Query("SELECT new com.backend.pandylingo.dto.user.LeaderboardRow(u.id, u.fullName, p.avatarUrl, p.xpPoints, p.streak) " +
+            "FROM UserProfile p JOIN p.user u ORDER BY p.xpPoints DESC, u.id")
+    List<LeaderboardRow> findLeaderboardRows(Pageable pageable);
+
+    @Query("SELECT new com.backend.pandylingo.dto.user.LeaderboardRow(u.id, u.fullName, p.avatarUrl, p.xpPoints, p.streak) " +
+            "FROM UserProfile p JOIN p.user u " +
+            "WHERE p.xpPoints < :xp OR (p.xpPoints = :xp AND u.id > :userId) " +
+            "ORDER BY p.xpPoints DESC, u.id")
+    List<LeaderboardRow> findLeaderboardRowsAfter(@Param("xp") int xp, @Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT new com.backend.pandylingo.dto.user.LeaderboardRow(u.id, u.fullName, p.avatarUrl, p.xpPoints, p.streak) " +
+            "FROM UserProfile p JOIN p.user u WHERE u.id = :userId")
+    Optional<LeaderboardRow> findLeaderboardRowByUserId(@Param("userId") UUID userId);
 }
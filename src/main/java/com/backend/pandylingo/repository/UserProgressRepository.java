@@ -1,26 +1,127 @@
 package com.backend.pandylingo.repository;
 
+import com.backend.pandylingo.dto.progress.UserProgressResponse;
 import com.backend.pandylingo.model.UserProgress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface UserProgressRepository extends JpaRepository<UserProgress, UUID> {
 
+    // History rows with their exercise's type and question joined in, filtered by lesson and
+    // [from, to) when given; newest first
+    String HISTORY_QUERY = "SELECT new com.backend.pandylingo.dto.progress.UserProgressResponse(" +
+            "up.id, e.id, TYPE(e), e.question, up.completed, up.correct, up.outcome, up.completedAt, " +
+            "up.userAnswer, up.xpEarned, up.heartsUsed) " +
+            "FROM UserProgress up JOIN up.exercise e " +
+            "WHERE up.user.user.id = :userId " +
+            "AND (:lessonId IS NULL OR e.lesson.id = :lessonId) " +
+            "AND (:from IS NULL OR up.completedAt >= :from) " +
+            "AND (:to IS NULL OR up.completedAt < :to) ";
+
+    String HISTORY_ORDER = "ORDER BY up.completedAt DESC, up.id DESC";
+
     // Find all progress records for a specific user
     List<UserProgress> findByUserId(UUID userId);
 
+    // Find all progress records of a user, by user id, with their exercises loaded
+    @Query("SELECT up FROM UserProgress up JOIN FETCH up.exercise " +
+            "WHERE up.user.user.id = :userId")
+    List<UserProgress> findAllByUserIdWithExercise(@Param("userId") UUID userId);
+
+    // One page of history; with a cursor, only rows strictly after (completedAt, id) in history order
+    @Query(HISTORY_QUERY +
+            "AND (:afterCompletedAt IS NULL OR up.completedAt < :afterCompletedAt " +
+            "OR (up.completedAt = :afterCompletedAt AND up.id < :afterId)) " +
+            HISTORY_ORDER)
+    List<UserProgressResponse> findHistory(
+            @Param("userId") UUID userId,
+            @Param("lessonId") UUID lessonId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterCompletedAt") LocalDateTime afterCompletedAt,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
+
+    // Whole history as a cursor-backed stream; must be consumed inside a transaction
+    @Query(HISTORY_QUERY + HISTORY_ORDER)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserProgressResponse> streamHistory(
+            @Param("userId") UUID userId,
+            @Param("lessonId") UUID lessonId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
     // Find progress for a specific user and exercise
     Optional<UserProgress> findByUserIdAndExerciseId(UUID userId, UUID exerciseId);
 
+    boolean existsByUserIdAndExerciseId(UUID userId, UUID exerciseId);
+
+    // Records a completed answer unless the exercise already is completed, in which case it returns 0.
+    // A concurrent insert of the same answer waits on the unique key and then finds it completed
+    @Modifying
+    @Query(value = "INSERT INTO user_progress (id, user_id, exercise_id, completed, correct, outcome, completed_at, " +
+            "user_answer, xp_earned, hearts_used) " +
+            "VALUES (:id, :profileId, :exerciseId, true, :correct, :outcome, :completedAt, :userAnswer, :xpEarned, :heartsUsed) " +
+            "ON CONFLICT (user_id, exercise_id) DO UPDATE SET completed = true, correct = EXCLUDED.correct, " +
+            "outcome = EXCLUDED.outcome, completed_at = EXCLUDED.completed_at, user_answer = EXCLUDED.user_answer, " +
+            "xp_earned = EXCLUDED.xp_earned, hearts_used = EXCLUDED.hearts_used " +
+            "WHERE NOT user_progress.completed",
+            nativeQuery = true)
+    int insertCompleted(
+            @Param("id") UUID id,
+            @Param("profileId") UUID profileId,
+            @Param("exerciseId") UUID exerciseId,
+            @Param("correct") boolean correct,
+            @Param("outcome") String outcome,
+            @Param("completedAt") LocalDateTime completedAt,
+            @Param("userAnswer") String userAnswer,
+            @Param("xpEarned") int xpEarned,
+            @Param("heartsUsed") int heartsUsed);
+
+    // Find the progress of a user for several exercises at once
+    List<UserProgress> findByUserIdAndExerciseIdIn(UUID userId, Collection<UUID> exerciseIds);
+
+    // Which of the given progress ids have been written
+    @Query("SELECT up.id FROM UserProgress up WHERE up.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    // Find previously synced attempts
+    List<UserProgress> findByAttemptIdIn(Collection<UUID> attemptIds);
+
+    // Find all progress records of a user within a lesson
+    @Query("SELECT up FROM UserProgress up " +
+            "WHERE up.user.id = :userId " +
+            "AND up.exercise.lesson.id = :lessonId")
+    List<UserProgress> findByUserIdAndLessonId(
+            @Param("userId") UUID userId,
+            @Param("lessonId") UUID lessonId);
+
+    // Ids of the exercises a user has completed in a lesson
+    @Query("SELECT up.exercise.id FROM UserProgress up " +
+            "WHERE up.user.id = :userId " +
+            "AND up.exercise.lesson.id = :lessonId " +
+            "AND up.completed = true")
+    List<UUID> findCompletedExerciseIds(
+            @Param("userId") UUID userId,
+            @Param("lessonId") UUID lessonId);
+
 
     // Count how many exercises a user has completed in a lesson
     @Query("SELECT COUNT(up) FROM UserProgress up " +
-            "WHERE up.user.id = :userId " +
+            "WHERE up.user.user.id = :userId " +
             "AND up.exercise.lesson.id = :lessonId " +
             "AND up.completed = true")
     int countCompletedExercisesByUserAndLesson(
@@ -29,7 +130,7 @@ public interface UserProgressRepository extends JpaRepository<UserProgress, UUID
 
     // Count how many exercises a user has correctly completed in a lesson
     @Query("SELECT COUNT(up) FROM UserProgress up " +
-            "WHERE up.user.id = :userId " +
+            "WHERE up.user.user.id = :userId " +
             "AND up.exercise.lesson.id = :lessonId " +
             "AND up.completed = true " +
             "AND up.correct = true")
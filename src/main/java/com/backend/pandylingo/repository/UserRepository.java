@@ -2,6 +2,7 @@ package com.backend.pandylingo.repository;
 
 import com.backend.pandylingo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -10,6 +11,12 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
+
+    interface TokenEpoch {
+        UUID getId();
+        int getTokenEpoch();
+    }
+
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
 
@@ -22,6 +29,14 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u WHERE  u.id = :id")
     Optional<User> findByIdWithoutProfile(@Param("id") UUID id);
 
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
+
+    // Users whose access tokens have been revoked at least once; covered by idx_users_token_epoch
+    @Query("SELECT u.id AS id, u.tokenEpoch AS tokenEpoch FROM User u WHERE u.tokenEpoch > 0")
+    List<TokenEpoch> findBumpedTokenEpochs();
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.userProfile WHERE  u.id = :id AND u.userProfile.hearts < :i")
     Optional<User> findByHeartsWithProfile(@Param("id") UUID id, @Param("hearts") int i);
 
@@ -0,0 +1,27 @@
+package com.backend.pandylingo.repository;
+
+import com.backend.pandylingo.model.LeaderboardWindow;
+import com.backend.pandylingo.model.XpBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface XpBucketRepository extends JpaRepository<XpBucket, XpBucket.Key> {
+
+    List<XpBucket> findByPeriodTypeAndPeriodKey(LeaderboardWindow periodType, String periodKey);
+
+    @Modifying
+    @Query(value = "INSERT INTO xp_buckets (user_id, period_type, period_key, xp) " +
+            "VALUES (:userId, :periodType, :periodKey, :xp) " +
+            "ON CONFLICT (user_id, period_type, period_key) DO UPDATE SET xp = xp_buckets.xp + EXCLUDED.xp",
+            nativeQuery = true)
+    int addXp(
+            @Param("userId") UUID userId,
+            @Param("periodType") String periodType,
+            @Param("periodKey") String periodKey,
+            @Param("xp") int xp);
+}
@@ -0,0 +1,90 @@
+package com.backend.pandylingo.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Runs a scheduled job on one node at a time. The job's lease is taken before it starts,
+ * renewed on a heartbeat while it runs and released when it ends; nodes that find the lease
+ * held skip that run. If the holder dies its lease simply expires and the next run elsewhere
+ * takes over, so jobs run this way must be safe to resume or repeat.
+ */
+@Component
+public class ClusterJobRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterJobRunner.class);
+
+    private final SchedulerLock lock;
+    private final MeterRegistry meterRegistry;
+    private final Duration lease;
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Counter> skipped = new ConcurrentHashMap<>();
+
+    public ClusterJobRunner(
+            SchedulerLock lock,
+            MeterRegistry meterRegistry,
+            @Value("${scheduler.lock.lease-seconds:60}") long leaseSeconds
+    ) {
+        this.lock = lock;
+        this.meterRegistry = meterRegistry;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * @return false if another node holds the job's lease and the job did not run here
+     */
+    public boolean runExclusively(String name, Runnable job) {
+        if (!lock.tryAcquire(name, lease)) {
+            skipped.computeIfAbsent(name, jobName -> Counter.builder("scheduler.lock.skipped")
+                    .tag("job", jobName)
+                    .register(meterRegistry)).increment();
+            logger.debug("Skipping {}, another node holds its lease", name);
+            return false;
+        }
+
+        // Renew well before expiry so one slow heartbeat does not hand the job to another node
+        long period = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(
+                () -> renew(name), period, period, TimeUnit.MILLISECONDS);
+        try {
+            job.run();
+            return true;
+        } finally {
+            heartbeat.cancel(false);
+            try {
+                lock.release(name);
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to release the lease on {}, it will expire", name, ex);
+            }
+        }
+    }
+
+    // An exception would cancel the periodic heartbeat, so failures are only logged
+    private void renew(String name) {
+        try {
+            if (!lock.renew(name, lease)) {
+                logger.warn("Lost the lease on {} while running it", name);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to renew the lease on {}", name, ex);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+    }
+}
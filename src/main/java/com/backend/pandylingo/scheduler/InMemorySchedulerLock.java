@@ -0,0 +1,60 @@
+package com.backend.pandylingo.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SchedulerLock} kept in a map, for tests and single-node runs. Instances created
+ * with the same map and different owners behave like nodes sharing one lease table, and
+ * a clock per instance lets a test move past a lease's expiry.
+ */
+public class InMemorySchedulerLock implements SchedulerLock {
+
+    public record Lease(String owner, Instant expiresAt) {}
+
+    private final Map<String, Lease> leases;
+    private final String owner;
+    private final Clock clock;
+
+    public InMemorySchedulerLock() {
+        this(new ConcurrentHashMap<>(), "local", Clock.systemUTC());
+    }
+
+    public InMemorySchedulerLock(Map<String, Lease> leases, String owner, Clock clock) {
+        this.leases = leases;
+        this.owner = owner;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, Duration lease) {
+        Instant now = clock.instant();
+        Lease next = new Lease(owner, now.plus(lease));
+        Lease result = leases.compute(name, (_, current) ->
+                current == null || !current.expiresAt().isAfter(now) ? next : current);
+        return result == next;
+    }
+
+    @Override
+    public boolean renew(String name, Duration lease) {
+        Lease next = new Lease(owner, clock.instant().plus(lease));
+        Lease result = leases.computeIfPresent(name, (_, current) ->
+                current.owner().equals(owner) ? next : current);
+        return result == next;
+    }
+
+    @Override
+    public void release(String name) {
+        Instant now = clock.instant();
+        leases.computeIfPresent(name, (_, current) ->
+                current.owner().equals(owner) ? new Lease(owner, now) : current);
+    }
+
+    @Override
+    public String owner() {
+        return owner;
+    }
+}
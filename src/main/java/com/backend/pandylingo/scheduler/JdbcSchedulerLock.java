@@ -0,0 +1,65 @@
+package com.backend.pandylingo.scheduler;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * {@link SchedulerLock} on the scheduler_leases table. Every statement is a single
+ * conditional write evaluated against the database clock, so nodes with skewed clocks
+ * agree on when a lease expires.
+ */
+@Component
+public class JdbcSchedulerLock implements SchedulerLock {
+
+    // Takes over only an expired lease; a held one leaves the row untouched and counts 0
+    private static final String ACQUIRE_SQL =
+            "INSERT INTO scheduler_leases (name, owner, acquired_at, heartbeat_at, expires_at) " +
+            "VALUES (?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP + make_interval(secs => ?)) " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, acquired_at = EXCLUDED.acquired_at, " +
+            "heartbeat_at = EXCLUDED.heartbeat_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE scheduler_leases.expires_at <= EXCLUDED.acquired_at";
+
+    private static final String RENEW_SQL =
+            "UPDATE scheduler_leases SET heartbeat_at = CURRENT_TIMESTAMP, " +
+            "expires_at = CURRENT_TIMESTAMP + make_interval(secs => ?) WHERE name = ? AND owner = ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_leases SET expires_at = CURRENT_TIMESTAMP WHERE name = ? AND owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // pid@host plus a random suffix, since containers often all run as pid 1
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+            + UUID.randomUUID().toString().substring(0, 8);
+
+    public JdbcSchedulerLock(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, Duration lease) {
+        return jdbcTemplate.update(ACQUIRE_SQL, name, owner, seconds(lease)) > 0;
+    }
+
+    @Override
+    public boolean renew(String name, Duration lease) {
+        return jdbcTemplate.update(RENEW_SQL, seconds(lease), name, owner) > 0;
+    }
+
+    @Override
+    public void release(String name) {
+        jdbcTemplate.update(RELEASE_SQL, name, owner);
+    }
+
+    @Override
+    public String owner() {
+        return owner;
+    }
+
+    private static double seconds(Duration lease) {
+        return lease.toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.backend.pandylingo.scheduler;
+
+import com.backend.pandylingo.security.RefreshTokenRevocationStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RevokedTokenCompactionScheduler {
+    private final RefreshTokenRevocationStore revocationStore;
+    private final ClusterJobRunner jobRunner;
+
+    @Scheduled(cron = "0 30 * * * ?") // Run every hour
+    public void compactRevokedTokens() {
+        // The table is shared, the Bloom filter is per node
+        jobRunner.runExclusively("revoked-token-compaction", revocationStore::deleteExpired);
+        revocationStore.rebuild();
+    }
+}
@@ -0,0 +1,27 @@
+package com.backend.pandylingo.scheduler;
+
+import java.time.Duration;
+
+/**
+ * Named leases shared by every node running the application. Each implementation acts for
+ * one owner, i.e. one node; {@link ClusterJobRunner} uses it to run a job on a single node.
+ */
+public interface SchedulerLock {
+
+    /**
+     * Takes the lease if nobody holds it or the previous holder's lease has expired.
+     * @return false if another holder's lease is still running
+     */
+    boolean tryAcquire(String name, Duration lease);
+
+    /**
+     * Extends a lease this owner holds.
+     * @return false if the lease was lost to another owner
+     */
+    boolean renew(String name, Duration lease);
+
+    // Lets the next run on any node take the lease straight away
+    void release(String name);
+
+    String owner();
+}
@@ -1,51 +1,39 @@
 package com.backend.pandylingo.scheduler;
 
-import com.backend.pandylingo.model.UserProfile;
 import com.backend.pandylingo.repository.UserProfileRepository;
+import com.backend.pandylingo.service.StreakRolloverService;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
-import java.util.List;
+import java.time.ZoneId;
 
 @Component
 @RequiredArgsConstructor
 public class StreakScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(StreakScheduler.class);
 
+    private final StreakRolloverService streakRolloverService;
     private final UserProfileRepository userProfileRepository;
+    private final ClusterJobRunner jobRunner;
 
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
+    // Every hour some time zone reaches midnight; only those cohorts are rolled over
+    @Scheduled(cron = "0 0 * * * ?")
     public void updateStreaks() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-        List<UserProfile> allUsers = userProfileRepository.findAll();
-        
-        for (UserProfile userProfile : allUsers) {
-            LocalDate lastUpdate = userProfile.getLastStreakUpdate().toLocalDate();
-            
-            // User practiced today, nothing to do
-            if (lastUpdate.equals(today)) {
-                continue;
-            }
-            
-            // User practiced yesterday, streak is still valid
-            if (lastUpdate.equals(yesterday)) {
-                continue;
-            }
-            
-            // User didn't practice yesterday, check for streak freeze
-            if (userProfile.getStreakFreezeCount() > 0) {
-                // Use streak freeze
-                userProfile.setStreakFreezeCount(userProfile.getStreakFreezeCount() - 1);
-            } else {
-                // Reset streak
-                userProfile.setStreak(0);
-            }
+        jobRunner.runExclusively(StreakRolloverService.JOB_NAME, streakRolloverService::rolloverDueCohorts);
+    }
+
+    // Also finishes rollovers the application missed or stopped in the middle of
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRollover() {
+        int assigned = userProfileRepository.assignDefaultTimeZone(ZoneId.systemDefault().getId());
+        if (assigned > 0) {
+            logger.info("Assigned the server time zone to {} user profiles", assigned);
         }
-        
-        userProfileRepository.saveAll(allUsers);
+        updateStreaks();
     }
-}
\ No newline at end of file
+}
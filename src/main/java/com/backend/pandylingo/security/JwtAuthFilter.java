@@ -3,6 +3,7 @@ package com.backend.pandylingo.security;
 import com.backend.pandylingo.exception.InvalidTokenException;
 import com.backend.pandylingo.exception.UnauthenticatedException;
 import com.backend.pandylingo.model.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -29,10 +30,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenEpochCache tokenEpochCache;
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
-        return new AntPathMatcher().match("/api/auth/**", request.getServletPath());
+        return PATH_MATCHER.match("/api/auth/**", request.getServletPath());
     }
 
     @Override
@@ -50,25 +55,19 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
             final String jwt = authHeader.substring(7);
 
-            jwtUtils.validateAccessToken(jwt);
-
-            final UUID userId = jwtUtils.getUserIdFromAccessToken(jwt);
+            // Parse and verify once; controllers get the principal via @AuthenticationPrincipal
+            final Claims claims = jwtUtils.parseAccessToken(jwt);
+            final UUID userId = jwtUtils.getUserIdFromClaims(claims);
 
             if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Optional<User> userDetails = this.userDetailsService.loadUserById(userId);
-
-                if (userDetails.isEmpty()) {
-                    throw new UnauthenticatedException("User not found");
-                }
-
-                User user = userDetails.get();
+                User user = resolvePrincipal(userId, claims);
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         user,
                         null,
                         user.getAuthorities()
                 );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authToken.setDetails(detailsSource.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
 
@@ -83,6 +82,35 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
     }
 
+    // Builds the principal from the token claims; the DB is only consulted for
+    // tokens issued before the user's epoch was bumped, or without role/epoch claims
+    private User resolvePrincipal(UUID userId, Claims claims) {
+        if (jwtUtils.hasPrincipalClaims(claims)) {
+            int tokenEpoch = claims.get(JwtUtils.EPOCH_CLAIM, Integer.class);
+            if (!tokenEpochCache.isStale(userId, tokenEpoch)) {
+                return jwtUtils.getUserFromClaims(claims);
+            }
+
+            User user = loadUser(userId);
+            if (user.getTokenEpoch() != tokenEpoch) {
+                throw new UnauthenticatedException("Access token has been revoked");
+            }
+            return user;
+        }
+
+        return loadUser(userId);
+    }
+
+    private User loadUser(UUID userId) {
+        Optional<User> userDetails = this.userDetailsService.loadUserById(userId);
+
+        if (userDetails.isEmpty()) {
+            throw new UnauthenticatedException("User not found");
+        }
+
+        return userDetails.get();
+    }
+
     private void handleException(HttpServletResponse response, RuntimeException ex) throws IOException {
         response.setContentType("application/json");
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
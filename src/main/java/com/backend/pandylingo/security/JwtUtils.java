@@ -2,10 +2,12 @@ package com.backend.pandylingo.security;
 
 import com.backend.pandylingo.exception.InvalidTokenException;
 import com.backend.pandylingo.exception.UnauthenticatedException;
+import com.backend.pandylingo.model.Role;
 import com.backend.pandylingo.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,6 +20,10 @@ import java.util.function.Function;
 @Component
 @RequiredArgsConstructor
 public class JwtUtils {
+    public static final String ROLE_CLAIM = "role";
+    public static final String EMAIL_CLAIM = "email";
+    public static final String EPOCH_CLAIM = "epoch";
+
     @Value("${jwt.access.secret}")
     private String accessSecret;
 
@@ -32,10 +38,27 @@ public class JwtUtils {
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    // Keys and parsers are immutable and thread-safe, so they are built once instead of per token
+    private Key accessSigningKey;
+    private Key refreshSigningKey;
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
+
+    @PostConstruct
+    public void init() {
+        accessSigningKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(accessSecret));
+        refreshSigningKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(refreshSecret));
+        accessParser = Jwts.parserBuilder().setSigningKey(accessSigningKey).build();
+        refreshParser = Jwts.parserBuilder().setSigningKey(refreshSigningKey).build();
+    }
+
     public String generateAccessToken(UserDetails userDetails) {
         User user = (User) userDetails;
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(EMAIL_CLAIM, user.getEmail());
+        claims.put(EPOCH_CLAIM, user.getTokenEpoch());
         return buildAccessToken(claims, user.getId().toString());
     }
 
@@ -60,33 +83,56 @@ public class JwtUtils {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
+                .setId(UUID.randomUUID().toString())
                 .signWith(getRefreshSigningKey(), SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of an access token and returns its claims.
+     * This is the only place an access token is parsed; callers should keep the result
+     * instead of parsing the same token again.
+     */
+    public Claims parseAccessToken(String token) {
+        return accessParser.parseClaimsJws(token).getBody();
+    }
+
+    // Verifies a refresh token and returns its claims, including the jti used for rotation
+    public Claims parseRefreshToken(String token) {
+        return refreshParser.parseClaimsJws(token).getBody();
+    }
+
     public UUID getUserIdFromAccessToken(String token) {
-        return UUID.fromString(extractClaimForAccess(token, Claims::getSubject));
+        return getUserIdFromClaims(parseAccessToken(token));
     }
 
     public UUID getUserIdFromRefreshToken(String token) {
         return UUID.fromString(extractClaimForRefresh(token, Claims::getSubject));
     }
 
-    public User getUserFromAccessToken(String token) {
-        String jwt = token.substring(7);
-        UUID userId = getUserIdFromAccessToken(jwt);
-
-        Optional<User> user = userDetailsService.loadUserById(userId);
+    public UUID getUserIdFromClaims(Claims claims) {
+        return UUID.fromString(claims.getSubject());
+    }
 
-        if (user.isEmpty()) {
-            throw new UnauthenticatedException("User not found");
-        }
+    /**
+     * Builds a detached principal from the claims of a verified access token without touching the DB.
+     * Only id, email, role and token epoch are populated; load the entity when anything else is needed.
+     */
+    public User getUserFromClaims(Claims claims) {
+        return User.builder()
+                .id(getUserIdFromClaims(claims))
+                .email(claims.get(EMAIL_CLAIM, String.class))
+                .role(Role.valueOf(claims.get(ROLE_CLAIM, String.class)))
+                .tokenEpoch(claims.get(EPOCH_CLAIM, Integer.class))
+                .build();
+    }
 
-        return user.get();
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(ROLE_CLAIM) != null && claims.get(EPOCH_CLAIM) != null;
     }
 
-    public User getUserFromRefreshToken(String token) {
-        UUID userId = getUserIdFromRefreshToken(token);
+    public User getUserFromRefreshToken(Claims claims) {
+        UUID userId = getUserIdFromClaims(claims);
 
         Optional<User> user = userDetailsService.loadUserById(userId);
 
@@ -98,19 +144,16 @@ public class JwtUtils {
     }
 
     public void validateAccessToken(String token) {
-        validateToken(token, getAccessSigningKey());
+        validateToken(token, accessParser);
     }
 
     public void validateRefreshToken(String token) {
-        validateToken(token, getRefreshSigningKey());
+        validateToken(token, refreshParser);
     }
 
-    private void validateToken(String token, Key key) {
+    private void validateToken(String token, JwtParser parser) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
         } catch (ExpiredJwtException e) {
             throw new InvalidTokenException("Token expired");
         } catch (MalformedJwtException e) {
@@ -121,30 +164,18 @@ public class JwtUtils {
     }
 
     public <T> T extractClaimForAccess(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token, getAccessSigningKey());
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(parseAccessToken(token));
     }
 
     public <T> T extractClaimForRefresh(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token, getRefreshSigningKey());
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token, Key key) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsResolver.apply(refreshParser.parseClaimsJws(token).getBody());
     }
 
     public Key getAccessSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(accessSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return accessSigningKey;
     }
 
     public Key getRefreshSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(refreshSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return refreshSigningKey;
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.backend.pandylingo.security;
+
+import com.backend.pandylingo.config.RateLimitProperties;
+import com.backend.pandylingo.model.User;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Throttles expensive endpoints per client. Routes keyed by IP (login, register)
+ * are limited before authentication matters; routes keyed by user use the principal
+ * set by {@link JwtAuthFilter}, so this filter must run after it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimitProperties properties;
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = request.getServletPath();
+
+        for (Map.Entry<String, RateLimitProperties.Route> entry : properties.getRoutes().entrySet()) {
+            RateLimitProperties.Route route = entry.getValue();
+            if (!PATH_MATCHER.match(route.getPattern(), path)) {
+                continue;
+            }
+
+            long retryAfter = rateLimiter.tryAcquire(entry.getKey(), route, resolveClientKey(request, route));
+            if (retryAfter > 0) {
+                response.setContentType("application/json");
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+                response.getWriter().write("{\"message\":\"Too many requests\"}");
+                return;
+            }
+            break;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveClientKey(HttpServletRequest request, RateLimitProperties.Route route) {
+        if (route.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof User user) {
+                return user.getId().toString();
+            }
+        }
+        // Behind a proxy Tomcat has already replaced this with the X-Forwarded-For client address,
+        // but only for requests from trusted proxies (see server.forward-headers-strategy)
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,58 @@
+package com.backend.pandylingo.security;
+
+import com.backend.pandylingo.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one token bucket per (route, client key) pair. Buckets live in a
+ * ConcurrentHashMap, whose lock striping keeps lookups for different clients
+ * independent, and are evicted once they have been idle for a while.
+ */
+@Component
+public class RateLimiter {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("rate_limit.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * @return 0 when the request may proceed, otherwise the suggested Retry-After in seconds
+     */
+    public long tryAcquire(String routeName, RateLimitProperties.Route route, String clientKey) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(
+                routeName + ":" + clientKey,
+                _ -> new TokenBucket(route.getCapacity(), route.getRefillPerMinute(), now)
+        );
+
+        long retryAfter = bucket.tryConsume(now);
+        if (retryAfter > 0) {
+            rejections.computeIfAbsent(routeName, name -> Counter.builder("rate_limit.rejections")
+                    .tag("route", name)
+                    .register(meterRegistry)
+            ).increment();
+        }
+        return retryAfter;
+    }
+
+    @Scheduled(fixedDelay = 60 * 1000)
+    public void evictIdleBuckets() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(properties.getIdleEvictionSeconds());
+        buckets.values().removeIf(bucket -> bucket.getLastAccessNanos() < cutoff);
+    }
+}
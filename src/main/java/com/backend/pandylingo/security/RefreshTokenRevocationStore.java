@@ -0,0 +1,109 @@
+package com.backend.pandylingo.security;
+
+import com.backend.pandylingo.repository.RevokedRefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent set of revoked refresh-token ids (jti) with an in-memory Bloom filter in front.
+ * <p>
+ * A refresh always writes the presented jti, and {@link #revoke} learns from that insert
+ * whether the token is being replayed, so the filter saves no query there. It serves
+ * {@link #isRevoked}, a check that does not consume the token: ids the filter has never
+ * seen are answered from memory and only possible hits are confirmed against the database.
+ */
+@Component
+public class RefreshTokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenRevocationStore.class);
+
+    private final RevokedRefreshTokenRepository revokedTokenRepository;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Set while a rebuild is reading the table so concurrent revocations land in both filters
+    private volatile BloomFilter rebuildingFilter;
+
+    public RefreshTokenRevocationStore(
+            RevokedRefreshTokenRepository revokedTokenRepository,
+            @Value("${security.refresh-revocation.expected-entries:1000000}") long expectedEntries,
+            @Value("${security.refresh-revocation.false-positive-rate:0.01}") double falsePositiveRate
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(UUID jti) {
+        return filter.mightContain(jti) && revokedTokenRepository.existsById(jti);
+    }
+
+    /**
+     * Records the token as used.
+     * @return false if it had already been revoked, i.e. the refresh token is being replayed
+     */
+    @Transactional
+    public boolean revoke(UUID jti, UUID userId, LocalDateTime expiresAt) {
+        markRevoked(jti);
+        int inserted = revokedTokenRepository.insertIfAbsent(jti, userId, expiresAt, LocalDateTime.now());
+
+        // A rebuild may read the table before this row commits, so mark again once it is visible
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markRevoked(jti);
+                }
+            });
+        }
+
+        return inserted > 0;
+    }
+
+    // Shared table, so one node per run is enough (see RevokedTokenCompactionScheduler)
+    @Transactional
+    public void deleteExpired() {
+        int removed = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        logger.info("Compacted {} expired revoked refresh tokens", removed);
+    }
+
+    // Bloom filters cannot delete, so expired ids are dropped by building a fresh filter.
+    // Every node keeps its own filter and rebuilds it.
+    public void rebuild() {
+        BloomFilter next = new BloomFilter(expectedEntries, falsePositiveRate);
+        rebuildingFilter = next;
+
+        List<UUID> activeJtis = revokedTokenRepository.findActiveJtis(LocalDateTime.now());
+        activeJtis.forEach(next::add);
+
+        filter = next;
+        rebuildingFilter = null;
+        logger.info("Loaded {} revoked refresh tokens into the revocation filter", activeJtis.size());
+    }
+
+    private void markRevoked(UUID jti) {
+        // Read the rebuilding filter first: once it is cleared, the swap has already happened
+        BloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.add(jti);
+        }
+        filter.add(jti);
+    }
+}
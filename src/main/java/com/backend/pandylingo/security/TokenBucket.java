@@ -0,0 +1,50 @@
+package com.backend.pandylingo.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free token bucket. The token count and refill timestamp are swapped together
+ * with a single compare-and-set, so concurrent requests never block each other.
+ */
+class TokenBucket {
+
+    private record State(double tokens, long refilledAtNanos) {}
+
+    private final int capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+    private volatile long lastAccessNanos;
+
+    TokenBucket(int capacity, double refillPerMinute, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / 60_000_000_000d;
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+        this.lastAccessNanos = nowNanos;
+    }
+
+    /**
+     * Takes one token if available.
+     * @return 0 when the request is allowed, otherwise the number of seconds until a token is available
+     */
+    long tryConsume(long nowNanos) {
+        lastAccessNanos = nowNanos;
+
+        while (true) {
+            State current = state.get();
+            long elapsed = Math.max(0, nowNanos - current.refilledAtNanos());
+            double tokens = Math.min(capacity, current.tokens() + elapsed * refillPerNano);
+
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / refillPerNano / 1_000_000_000d);
+            }
+
+            if (state.compareAndSet(current, new State(tokens - 1, nowNanos))) {
+                return 0;
+            }
+        }
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+}
@@ -0,0 +1,69 @@
+package com.backend.pandylingo.security;
+
+import com.backend.pandylingo.model.User;
+import com.backend.pandylingo.repository.UserRepository;
+import com.backend.pandylingo.util.Transactions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the token epoch of every user whose epoch has been bumped, on any node.
+ * Access tokens carry the epoch they were issued with, so a token is only checked
+ * against the database when its epoch is older than the one recorded here.
+ * <p>
+ * Loaded from users.token_epoch at startup and polled from there, so a bump made on
+ * another node is honoured here within one poll interval. Bumps made on this node
+ * apply as soon as their transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenEpochCache {
+
+    private final UserRepository userRepository;
+    private final UserPrincipalCache userCache;
+    private final Map<UUID, Integer> bumpedEpochs = new ConcurrentHashMap<>();
+
+    /**
+     * Invalidates every access token issued to the user so far.
+     * Must be called before the user is saved so the new epoch is persisted.
+     */
+    public void revokeTokens(User user) {
+        int newEpoch = user.getTokenEpoch() + 1;
+        user.setTokenEpoch(newEpoch);
+        UUID userId = user.getId();
+        Transactions.afterCommit(() -> record(userId, newEpoch));
+    }
+
+    public boolean isStale(UUID userId, int tokenEpoch) {
+        Integer currentEpoch = bumpedEpochs.get(userId);
+        return currentEpoch != null && tokenEpoch < currentEpoch;
+    }
+
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    // Picks up bumps made on other nodes
+    @Scheduled(fixedDelayString = "${security.token-epoch.poll-interval-ms:5000}")
+    public void refresh() {
+        for (UserRepository.TokenEpoch epoch : userRepository.findBumpedTokenEpochs()) {
+            record(epoch.getId(), epoch.getTokenEpoch());
+        }
+    }
+
+    // A cached principal may still carry the old role, so it goes too
+    private void record(UUID userId, int epoch) {
+        Integer known = bumpedEpochs.get(userId);
+        if (known == null || known < epoch) {
+            bumpedEpochs.merge(userId, epoch, Math::max);
+            userCache.invalidate(userId);
+        }
+    }
+}
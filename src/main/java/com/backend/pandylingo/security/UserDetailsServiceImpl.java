@@ -5,29 +5,52 @@ import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCache userCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws NotFoundException {
-        return userRepository.findByEmail(email)
+        return userCache.getByEmail(email)
+                .or(() -> userRepository.findByEmail(email).map(this::cache))
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
     public Optional<User> loadUserById(UUID userId) {
-        return userRepository.findById(userId);
+        return userCache.getById(userId)
+                .or(() -> userRepository.findById(userId).map(this::cache));
     }
 
+    // Not cached: the profile holds xp, hearts and streak, which change on almost every request
     public Optional<User> loadUserByIdWithProfile(UUID userId) {
-        return userRepository.findById(userId);
+        return userRepository.findByIdWithProfile(userId);
     }
-}
\ No newline at end of file
+
+    // Called by the authentication provider after a successful login when the stored
+    // hash was produced with a lower bcrypt cost than currently configured
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        userRepository.updatePassword(user.getId(), newPassword);
+        userCache.invalidate(user);
+        user.setPassword(newPassword);
+        return user;
+    }
+
+    private User cache(User user) {
+        userCache.put(user);
+        return user;
+    }
+}
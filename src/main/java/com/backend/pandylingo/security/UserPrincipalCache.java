@@ -0,0 +1,116 @@
+package com.backend.pandylingo.security;
+
+import com.backend.pandylingo.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded, TTL-based cache of loaded users, keyed by id and by email.
+ * Entries are evicted least-recently-used once the cache is full. Anything that
+ * saves a user must call {@link #invalidate(User)} so stale roles or passwords are not served.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private record CachedUser(User user, long expiresAt) {}
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Access-ordered so the eldest entry is the least recently used one; guarded by this
+    private final LinkedHashMap<UUID, CachedUser> usersById;
+    private final Map<String, UUID> idsByEmail = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserPrincipalCache(
+            @Value("${security.user-cache.max-size:10000}") int maxSize,
+            @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.usersById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedUser> eldest) {
+                if (size() > UserPrincipalCache.this.maxSize) {
+                    idsByEmail.remove(eldest.getValue().user().getEmail());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("user.cache.gets").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.cache.gets").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("user.cache.evictions").register(meterRegistry);
+        Gauge.builder("user.cache.size", this, UserPrincipalCache::size).register(meterRegistry);
+    }
+
+    public synchronized Optional<User> getById(UUID userId) {
+        CachedUser cached = usersById.get(userId);
+
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            remove(userId);
+            evictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(cached.user());
+    }
+
+    public Optional<User> getByEmail(String email) {
+        UUID userId = idsByEmail.get(email);
+
+        if (userId == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        return getById(userId);
+    }
+
+    public synchronized void put(User user) {
+        usersById.put(user.getId(), new CachedUser(user, System.currentTimeMillis() + ttlMillis));
+        idsByEmail.put(user.getEmail(), user.getId());
+    }
+
+    public synchronized void invalidate(User user) {
+        remove(user.getId());
+        idsByEmail.remove(user.getEmail());
+    }
+
+    public synchronized void invalidate(UUID userId) {
+        remove(userId);
+    }
+
+    public synchronized int size() {
+        return usersById.size();
+    }
+
+    private void remove(UUID userId) {
+        CachedUser removed = usersById.remove(userId);
+        if (removed != null) {
+            idsByEmail.remove(removed.user().getEmail());
+        }
+    }
+}
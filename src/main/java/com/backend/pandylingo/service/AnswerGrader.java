@@ -0,0 +1,220 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.config.GradingProperties;
+import com.backend.pandylingo.model.AnswerOutcome;
+import com.backend.pandylingo.model.Exercise;
+import com.backend.pandylingo.model.Language;
+import com.backend.pandylingo.model.MatchingExercise;
+import com.backend.pandylingo.model.TranslationExercise;
+import com.backend.pandylingo.repository.LessonRepository;
+import com.backend.pandylingo.util.Transactions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Grades answers against each exercise's accepted answers, normalized once for the lesson's
+ * language by {@link AnswerNormalizer} and cached per exercise. Grading a submission then
+ * normalizes only the submitted answer and does one set lookup.
+ * <p>
+ * A translation that misses every accepted answer by no more than the allowed number of
+ * edits (see {@link GradingProperties}) is almost correct: it earns partial xp and costs no
+ * hearts. An incorrect answer earns no xp and costs the full hearts.
+ * <p>
+ * Matching answers are "key:value" pairs separated by commas and compare as an unordered set
+ * of normalized pairs.
+ * <p>
+ * Both caches are bounded, least-recently-used first, and entries expire after a TTL. A
+ * compiled answer also remembers the answers it was compiled from and is rebuilt when the
+ * exercise being graded no longer matches them, so an edit made through another node is
+ * picked up on its next grade. A lesson's language changed through another node is picked
+ * up once its cached entry expires.
+ */
+@Component
+public class AnswerGrader {
+    private final LessonRepository lessonRepository;
+    private final GradingProperties gradingProperties;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    public record Grade(AnswerOutcome outcome, int xpEarned, int heartsUsed) {
+        // Almost correct answers count as correct
+        public boolean correct() {
+            return outcome != AnswerOutcome.INCORRECT;
+        }
+    }
+
+    // Typo patterns are only built for translations, and only when tolerance is enabled
+    private record CompiledAnswer(List<String> accepted, Language language, boolean matching, Set<String> keys,
+                                  List<EditDistance> typoPatterns, long expiresAt) {}
+
+    private record CachedLanguage(Language language, long expiresAt) {}
+
+    // Access-ordered for LRU eviction; guarded by this
+    private final LinkedHashMap<UUID, CompiledAnswer> compiledByExercise;
+    private final LinkedHashMap<UUID, CachedLanguage> languageByLesson;
+
+    public AnswerGrader(
+            LessonRepository lessonRepository,
+            GradingProperties gradingProperties,
+            @Value("${grading.cache.max-entries:10000}") int maxEntries,
+            @Value("${grading.cache.ttl-seconds:600}") long ttlSeconds
+    ) {
+        this.lessonRepository = lessonRepository;
+        this.gradingProperties = gradingProperties;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.compiledByExercise = lru();
+        this.languageByLesson = lru();
+    }
+
+    private <V> LinkedHashMap<UUID, V> lru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Grade grade(Exercise exercise, String answer) {
+        AnswerOutcome outcome = outcomeOf(exercise, answer);
+        return switch (outcome) {
+            case CORRECT -> new Grade(outcome, exercise.getXpReward(), exercise.getHeartsCost());
+            case ALMOST_CORRECT -> new Grade(outcome,
+                    exercise.getXpReward() * gradingProperties.getPartialXpPercent() / 100, 0);
+            case INCORRECT -> new Grade(outcome, 0, exercise.getHeartsCost());
+        };
+    }
+
+    private AnswerOutcome outcomeOf(Exercise exercise, String answer) {
+        if (answer == null) {
+            return AnswerOutcome.INCORRECT;
+        }
+        CompiledAnswer compiled = compiled(exercise);
+
+        String key = key(answer, compiled.language(), compiled.matching());
+        if (compiled.keys().contains(key)) {
+            return AnswerOutcome.CORRECT;
+        }
+        for (EditDistance pattern : compiled.typoPatterns()) {
+            int allowed = gradingProperties.allowedEdits(compiled.language(), pattern.patternLength());
+            if (allowed > 0 && pattern.distance(key, allowed) <= allowed) {
+                return AnswerOutcome.ALMOST_CORRECT;
+            }
+        }
+        return AnswerOutcome.INCORRECT;
+    }
+
+    // Applied after commit so a concurrent grade cannot re-cache the old answers
+    public void invalidate(UUID exerciseId) {
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                compiledByExercise.remove(exerciseId);
+            }
+        });
+    }
+
+    // For changes that can affect every exercise of a lesson, such as its language
+    public void invalidateAll() {
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                languageByLesson.clear();
+                compiledByExercise.clear();
+            }
+        });
+    }
+
+    // The exercise was loaded for this grade, so its answers are the current ones
+    private CompiledAnswer compiled(Exercise exercise) {
+        List<String> accepted = acceptedAnswers(exercise);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            CompiledAnswer compiled = compiledByExercise.get(exercise.getId());
+            if (compiled != null && compiled.expiresAt() >= now && compiled.accepted().equals(accepted)) {
+                return compiled;
+            }
+        }
+
+        CompiledAnswer compiled = compile(exercise, accepted, now);
+        synchronized (this) {
+            compiledByExercise.put(exercise.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    private Language language(UUID lessonId, long now) {
+        synchronized (this) {
+            CachedLanguage cached = languageByLesson.get(lessonId);
+            if (cached != null && cached.expiresAt() >= now) {
+                return cached.language();
+            }
+        }
+
+        Language language = lessonRepository.findLanguageById(lessonId).orElse(null);
+        if (language != null) {
+            synchronized (this) {
+                languageByLesson.put(lessonId, new CachedLanguage(language, now + ttlMillis));
+            }
+        }
+        return language;
+    }
+
+    private static List<String> acceptedAnswers(Exercise exercise) {
+        List<String> accepted = new ArrayList<>();
+        if (exercise.getCorrectAnswer() != null) {
+            accepted.add(exercise.getCorrectAnswer());
+        }
+        if (exercise instanceof TranslationExercise translation && translation.getAcceptedAnswers() != null) {
+            accepted.addAll(translation.getAcceptedAnswers());
+        }
+        return accepted;
+    }
+
+    private CompiledAnswer compile(Exercise exercise, List<String> accepted, long now) {
+        // getId() on the lesson proxy does not load it, so this also works outside a transaction
+        Language language = language(exercise.getLesson().getId(), now);
+
+        boolean matching = exercise instanceof MatchingExercise;
+        Set<String> keys = new HashSet<>();
+        for (String answer : accepted) {
+            keys.add(key(answer, language, matching));
+        }
+        keys.remove("");
+
+        List<EditDistance> typoPatterns = new ArrayList<>();
+        if (exercise instanceof TranslationExercise && gradingProperties.isEnabled()) {
+            for (String key : keys) {
+                typoPatterns.add(new EditDistance(key));
+            }
+        }
+        return new CompiledAnswer(accepted, language, matching, Set.copyOf(keys),
+                List.copyOf(typoPatterns), now + ttlMillis);
+    }
+
+    private static String key(String answer, Language language, boolean matching) {
+        return matching ? matchingKey(answer, language) : AnswerNormalizer.normalize(answer, language);
+    }
+
+    // Normalized "key:value" pairs in sorted order, so pair order in the answer does not matter
+    private static String matchingKey(String answer, Language language) {
+        List<String> pairs = new ArrayList<>();
+        for (String pair : answer.split(",")) {
+            int separator = pair.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            pairs.add(AnswerNormalizer.normalize(pair.substring(0, separator), language) + ":" +
+                    AnswerNormalizer.normalize(pair.substring(separator + 1), language));
+        }
+        pairs.sort(null);
+        return String.join(",", pairs);
+    }
+}
@@ -0,0 +1,199 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.model.Language;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Reduces an answer to the form it is graded in, so answers that differ only in case, width,
+ * accents, punctuation or spacing compare equal. Every language gets NFKC, lower case,
+ * diacritic folding and punctuation/whitespace collapse; on top of that SPANISH keeps ñ,
+ * GERMAN folds ß to ss, FRENCH expands œ and æ, and JAPANESE spells kana in Hepburn romaji
+ * and ignores spaces, so kana and romaji answers meet.
+ */
+final class AnswerNormalizer {
+
+    private static final char COMBINING_TILDE = '\u0303';
+    private static final char KANA_VOICED_MARK = '\u3099';
+    private static final char KANA_SEMI_VOICED_MARK = '\u309A';
+
+    private AnswerNormalizer() {}
+
+    static String normalize(String answer, Language language) {
+        if (answer == null) {
+            return "";
+        }
+
+        // NFKC folds full/half-width forms and compatibility characters, NFD then splits off accents
+        String text = isAscii(answer) ? answer.toLowerCase(Locale.ROOT)
+                : Normalizer.normalize(Normalizer.normalize(answer, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT),
+                Normalizer.Form.NFD);
+
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        boolean hasMarks = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int type = Character.getType(c);
+
+            if (type == Character.NON_SPACING_MARK) {
+                if (keepMark(c, out, language)) {
+                    out.append(c);
+                    hasMarks = true;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c) || isPunctuation(type)) {
+                pendingSpace = !out.isEmpty();
+                continue;
+            }
+
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            switch (c) {
+                case 'ß' -> out.append(language == Language.GERMAN ? "ss" : "ß");
+                case 'œ' -> out.append(language == Language.FRENCH ? "oe" : "œ");
+                case 'æ' -> out.append(language == Language.FRENCH ? "ae" : "æ");
+                default -> out.append(c);
+            }
+        }
+
+        // Recompose the marks that were kept (ñ, voiced kana)
+        String normalized = hasMarks ? Normalizer.normalize(out, Normalizer.Form.NFC) : out.toString();
+        return language == Language.JAPANESE ? KanaTable.toRomaji(normalized) : normalized;
+    }
+
+    private static boolean keepMark(char mark, StringBuilder out, Language language) {
+        if (mark == KANA_VOICED_MARK || mark == KANA_SEMI_VOICED_MARK) {
+            return true;
+        }
+        return language == Language.SPANISH && mark == COMBINING_TILDE
+                && !out.isEmpty() && out.charAt(out.length() - 1) == 'n';
+    }
+
+    private static boolean isPunctuation(int type) {
+        return switch (type) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION,
+                 Character.FINAL_QUOTE_PUNCTUATION, Character.OTHER_PUNCTUATION -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hiragana and katakana to Hepburn romaji; other characters pass through, spaces are dropped
+    static final class KanaTable {
+        private static final String KANA =
+                "あいうえおかきくけこさしすせそたちつてとなにぬねのはひふへほまみむめもやゆよらりるれろわゐゑをん" +
+                "がぎぐげござじずぜぞだぢづでどばびぶべぼぱぴぷぺぽゔぁぃぅぇぉゃゅょゎ";
+        private static final String[] ROMAJI = {
+                "a", "i", "u", "e", "o", "ka", "ki", "ku", "ke", "ko", "sa", "shi", "su", "se", "so",
+                "ta", "chi", "tsu", "te", "to", "na", "ni", "nu", "ne", "no", "ha", "hi", "fu", "he", "ho",
+                "ma", "mi", "mu", "me", "mo", "ya", "yu", "yo", "ra", "ri", "ru", "re", "ro",
+                "wa", "i", "e", "o", "n",
+                "ga", "gi", "gu", "ge", "go", "za", "ji", "zu", "ze", "zo", "da", "ji", "zu", "de", "do",
+                "ba", "bi", "bu", "be", "bo", "pa", "pi", "pu", "pe", "po", "vu",
+                "a", "i", "u", "e", "o", "ya", "yu", "yo", "wa"
+        };
+        private static final char FIRST_HIRAGANA = 'ぁ';
+        private static final char LAST_HIRAGANA = 'ゖ';
+        private static final String[] ROMAJI_BY_CHAR = new String[LAST_HIRAGANA - FIRST_HIRAGANA + 1];
+
+        static {
+            if (KANA.length() != ROMAJI.length) {
+                throw new IllegalStateException("Kana table is out of step with its romaji");
+            }
+            for (int i = 0; i < KANA.length(); i++) {
+                ROMAJI_BY_CHAR[KANA.charAt(i) - FIRST_HIRAGANA] = ROMAJI[i];
+            }
+        }
+
+        private KanaTable() {}
+
+        static String toRomaji(String text) {
+            StringBuilder out = new StringBuilder(text.length() * 2);
+            boolean doubleNext = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = toHiragana(text.charAt(i));
+                if (c == ' ' || c == 'ー') {
+                    // Long vowel marks are dropped, as macrons are by diacritic folding
+                    continue;
+                }
+                if (c == 'っ') {
+                    doubleNext = true;
+                    continue;
+                }
+
+                String romaji = romajiOf(c);
+                if (romaji == null) {
+                    out.append(c);
+                    doubleNext = false;
+                    continue;
+                }
+                if (i + 1 < text.length()) {
+                    String combined = combine(romaji, toHiragana(text.charAt(i + 1)));
+                    if (combined != null) {
+                        romaji = combined;
+                        i++;
+                    }
+                }
+                if (doubleNext) {
+                    out.append(romaji.charAt(0));
+                    doubleNext = false;
+                }
+                out.append(romaji);
+            }
+            return out.toString();
+        }
+
+        // きゃ -> kya, しゃ -> sha, ふぁ -> fa, てぃ -> ti, うぃ -> wi
+        private static String combine(String romaji, char small) {
+            String vowel = switch (small) {
+                case 'ゃ' -> "a";
+                case 'ゅ' -> "u";
+                case 'ょ' -> "o";
+                default -> null;
+            };
+            if (vowel != null) {
+                if (romaji.length() < 2 || !romaji.endsWith("i")) {
+                    return null;
+                }
+                String base = romaji.substring(0, romaji.length() - 1);
+                return base.endsWith("sh") || base.endsWith("ch") || base.equals("j") ? base + vowel : base + "y" + vowel;
+            }
+
+            vowel = switch (small) {
+                case 'ぁ' -> "a";
+                case 'ぃ' -> "i";
+                case 'ぅ' -> "u";
+                case 'ぇ' -> "e";
+                case 'ぉ' -> "o";
+                default -> null;
+            };
+            if (vowel == null) {
+                return null;
+            }
+            String base = romaji.substring(0, romaji.length() - 1);
+            return (base.isEmpty() ? "w" : base) + vowel;
+        }
+
+        private static String romajiOf(char hiragana) {
+            return hiragana >= FIRST_HIRAGANA && hiragana <= LAST_HIRAGANA ? ROMAJI_BY_CHAR[hiragana - FIRST_HIRAGANA] : null;
+        }
+
+        private static char toHiragana(char c) {
+            return c >= 'ァ' && c <= 'ヶ' ? (char) (c - 0x60) : c;
+        }
+    }
+}
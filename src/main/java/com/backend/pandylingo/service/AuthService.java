@@ -7,6 +7,8 @@ import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.model.UserProfile;
 import com.backend.pandylingo.repository.UserRepository;
 import com.backend.pandylingo.security.JwtUtils;
+import com.backend.pandylingo.security.RefreshTokenRevocationStore;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
@@ -21,7 +23,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -34,6 +40,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final AppStatsService appStatsService;
+    private final RefreshTokenRevocationStore revocationStore;
+    private final LeaderboardService leaderboardService;
 
     private final Logger logger = Logger.getLogger(this.getClass().getName());;
 
@@ -78,6 +86,9 @@ public class AuthService {
             if (request.getFullName() == null || request.getFullName().isBlank()) {
                 throw new BadRequestException("Full name is required");
             }
+            if (request.getTimeZone() != null) {
+                request.setTimeZone(parseTimeZone(request.getTimeZone()).getId());
+            }
 
             // Check for existing user
             if (userRepository.existsByEmail(request.getEmail())) {
@@ -90,6 +101,7 @@ public class AuthService {
 
             if (user.getRole() == Role.USER) {
                 appStatsService.incrementUsersCount();
+                leaderboardService.update(user.getUserProfile());
             }
 
             return "User registered successfully";
@@ -106,9 +118,22 @@ public class AuthService {
         try {
             String refreshToken = request.getRefreshToken();
 
-            jwtUtils.validateRefreshToken(refreshToken);
+            Claims claims = jwtUtils.parseRefreshToken(refreshToken);
+
+            // Tokens issued before rotation have no jti and cannot be revoked
+            if (claims.getId() == null) {
+                throw new UnauthenticatedException("Invalid refresh token");
+            }
 
-            User userDetails = jwtUtils.getUserFromRefreshToken(refreshToken);
+            UUID jti = UUID.fromString(claims.getId());
+            User userDetails = jwtUtils.getUserFromRefreshToken(claims);
+
+            // Each refresh token is single-use: revoke it before issuing its replacement.
+            // The insert itself reports a replay, so there is nothing to check first
+            if (!revocationStore.revoke(jti, userDetails.getId(),
+                    LocalDateTime.ofInstant(claims.getExpiration().toInstant(), ZoneId.systemDefault()))) {
+                throw new UnauthenticatedException("Refresh token has already been used");
+            }
 
             String newAccessToken = jwtUtils.generateAccessToken(userDetails);
             String newRefreshToken = jwtUtils.generateRefreshToken(userDetails);
@@ -152,10 +177,19 @@ public class AuthService {
             UserProfile userProfile = new UserProfile();
             userProfile.setAge(request.getAge());
             userProfile.setLanguageProficiencies(request.getLanguageProficiencies());
+            userProfile.setTimeZone(request.getTimeZone());
             userProfile.setUser(user);
             user.setUserProfile(userProfile);
         }
 
         return  userRepository.save(user);
     }
+
+    private static ZoneId parseTimeZone(String timeZone) {
+        try {
+            return ZoneId.of(timeZone);
+        } catch (DateTimeException ex) {
+            throw new BadRequestException("Unknown time zone: " + timeZone);
+        }
+    }
 }
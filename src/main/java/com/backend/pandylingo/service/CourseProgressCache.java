@@ -0,0 +1,119 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.dto.progress.CourseProgress;
+import com.backend.pandylingo.model.Difficulty;
+import com.backend.pandylingo.model.Language;
+import com.backend.pandylingo.util.Transactions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-user cache of course rollups, least-recently-used users evicted first.
+ * A user's entries are dropped when their progress changes and everyone's when a
+ * course gains or loses lessons or exercises.
+ * <p>
+ * Every invalidation takes the next generation. A reader takes the current generation before
+ * it reads the counts, and its put is skipped if the user was invalidated since, so a read
+ * that started before a commit cannot cache the counts that commit replaced.
+ * <p>
+ * Invalidations only reach this node's cache. With several nodes, a rollup cached elsewhere
+ * can lag a user's newer progress or an edited course by up to the TTL.
+ */
+@Component
+public class CourseProgressCache {
+
+    private record Course(Language language, Difficulty difficulty) {}
+
+    private record UserEntry(Map<Course, CourseProgress> courses, long expiresAt) {}
+
+    private final int maxUsers;
+    private final long ttlMillis;
+
+    // Access-ordered for LRU eviction; guarded by this
+    private final LinkedHashMap<UUID, UserEntry> entries;
+
+    // Generation of each user's latest invalidation, bounded like the entries; guarded by this
+    private final LinkedHashMap<UUID, Long> invalidatedAt;
+    private long generation;
+    // A user whose invalidation was evicted counts as invalidated at the newest evicted generation
+    private long evictedInvalidation;
+
+    public CourseProgressCache(
+            @Value("${progress.course-cache.max-users:10000}") int maxUsers,
+            @Value("${progress.course-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.maxUsers = maxUsers;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, UserEntry> eldest) {
+                return size() > CourseProgressCache.this.maxUsers;
+            }
+        };
+        this.invalidatedAt = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+                if (size() <= CourseProgressCache.this.maxUsers) {
+                    return false;
+                }
+                evictedInvalidation = Math.max(evictedInvalidation, eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    // Taken before reading the counts that are then passed to put
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized CourseProgress get(UUID userId, Language language, Difficulty difficulty) {
+        UserEntry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry.courses().get(new Course(language, difficulty));
+    }
+
+    public synchronized void put(UUID userId, Language language, Difficulty difficulty, CourseProgress progress,
+                                 long readAt) {
+        if (invalidatedAt.getOrDefault(userId, evictedInvalidation) > readAt) {
+            return;
+        }
+        UserEntry entry = entries.get(userId);
+        if (entry == null || entry.expiresAt() < System.currentTimeMillis()) {
+            entry = new UserEntry(new HashMap<>(), System.currentTimeMillis() + ttlMillis);
+            entries.put(userId, entry);
+        }
+        entry.courses().put(new Course(language, difficulty), progress);
+    }
+
+    // Applied after commit so a concurrent read cannot re-cache the pre-commit counts
+    public void invalidate(UUID userId) {
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                entries.remove(userId);
+                invalidatedAt.put(userId, ++generation);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        Transactions.afterCommit(() -> {
+            synchronized (this) {
+                entries.clear();
+                invalidatedAt.clear();
+                evictedInvalidation = ++generation;
+            }
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package com.backend.pandylingo.service;
+
+import java.util.Arrays;
+
+/**
+ * Bounded Levenshtein distance against a fixed pattern. Patterns of up to 64 characters use
+ * Myers' bit-vector algorithm in Hyyrö's formulation, one word-wide step per text character;
+ * longer ones fall back to a two-row dynamic program. The pattern's character masks are built
+ * once, so comparing a text against it allocates nothing on the bit-parallel path.
+ */
+final class EditDistance {
+
+    static final int MAX_BIT_PARALLEL_LENGTH = Long.SIZE;
+
+    private final String pattern;
+    // Bit i is set where pattern.charAt(i) is the character
+    private final long[] asciiMasks;
+    private final char[] otherChars;
+    private final long[] otherMasks;
+
+    EditDistance(String pattern) {
+        this.pattern = pattern;
+        if (pattern.length() > MAX_BIT_PARALLEL_LENGTH) {
+            this.asciiMasks = null;
+            this.otherChars = null;
+            this.otherMasks = null;
+            return;
+        }
+
+        this.asciiMasks = new long[128];
+        char[] chars = new char[pattern.length()];
+        long[] masks = new long[pattern.length()];
+        int others = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                asciiMasks[c] |= 1L << i;
+                continue;
+            }
+            int slot = indexOf(chars, others, c);
+            if (slot < 0) {
+                slot = others++;
+                chars[slot] = c;
+            }
+            masks[slot] |= 1L << i;
+        }
+        this.otherChars = Arrays.copyOf(chars, others);
+        this.otherMasks = Arrays.copyOf(masks, others);
+    }
+
+    int patternLength() {
+        return pattern.length();
+    }
+
+    /**
+     * @return the edit distance between the pattern and the text, or {@code limit + 1} if it
+     * is greater than the limit
+     */
+    int distance(CharSequence text, int limit) {
+        int m = pattern.length();
+        int n = text.length();
+        if (Math.abs(m - n) > limit) {
+            return limit + 1;
+        }
+        if (m == 0 || n == 0) {
+            return Math.max(m, n);
+        }
+        return asciiMasks != null ? bitParallel(text, limit) : dynamic(text, limit);
+    }
+
+    private int bitParallel(CharSequence text, int limit) {
+        int m = pattern.length();
+        int n = text.length();
+        long last = 1L << (m - 1);
+        long pv = -1L;
+        long mv = 0L;
+        int score = m;
+
+        for (int j = 0; j < n; j++) {
+            long eq = maskOf(text.charAt(j));
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // The score falls by at most one per remaining text character
+            if (score - (n - j - 1) > limit) {
+                return limit + 1;
+            }
+
+            ph = (ph << 1) | 1L;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return Math.min(score, limit + 1);
+    }
+
+    private int dynamic(CharSequence text, int limit) {
+        int m = pattern.length();
+        int n = text.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char c = pattern.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                int substitution = previous[j - 1] + (c == text.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[n], limit + 1);
+    }
+
+    private long maskOf(char c) {
+        if (c < 128) {
+            return asciiMasks[c];
+        }
+        int slot = indexOf(otherChars, otherChars.length, c);
+        return slot < 0 ? 0L : otherMasks[slot];
+    }
+
+    private static int indexOf(char[] chars, int length, char c) {
+        for (int i = 0; i < length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
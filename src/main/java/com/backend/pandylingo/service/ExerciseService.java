@@ -5,7 +5,9 @@ import com.backend.pandylingo.model.Exercise;
 import com.backend.pandylingo.model.Lesson;
 import com.backend.pandylingo.model.MultipleChoiceExercise;
 import com.backend.pandylingo.model.MatchingExercise;
+import com.backend.pandylingo.model.TranslationExercise;
 import com.backend.pandylingo.repository.ExerciseRepository;
+import com.backend.pandylingo.repository.LessonProgressSummaryRepository;
 import com.backend.pandylingo.repository.LessonRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -25,6 +27,9 @@ import java.util.stream.Collectors;
 public class ExerciseService {
     private final ExerciseRepository exerciseRepository;
     private final LessonRepository lessonRepository;
+    private final LessonProgressSummaryRepository lessonProgressSummaryRepository;
+    private final CourseProgressCache courseProgressCache;
+    private final AnswerGrader answerGrader;
     private static final Logger logger = LoggerFactory.getLogger(ExerciseService.class);
 
     @Transactional
@@ -34,6 +39,8 @@ public class ExerciseService {
             Lesson lesson = getLessonById(lessonId);
             exercise.setLesson(lesson); // Set the lesson relationship
             Exercise savedExercise = exerciseRepository.save(exercise);
+            lessonRepository.adjustExerciseCount(lessonId, 1);
+            courseProgressCache.invalidateAll();
             logger.info("Created exercise: {}", savedExercise.getId());
             return savedExercise;
         } catch (DataIntegrityViolationException ex) {
@@ -67,10 +74,12 @@ public class ExerciseService {
                 existingMCE.setOptions(updatedMCE.getOptions());
             } else if (existingExercise instanceof MatchingExercise existingME && updatedExercise instanceof MatchingExercise updatedME) {
                 existingME.setPairs(updatedME.getPairs());
+            } else if (existingExercise instanceof TranslationExercise existingTE && updatedExercise instanceof TranslationExercise updatedTE) {
+                existingTE.setAcceptedAnswers(updatedTE.getAcceptedAnswers());
             }
-            // No specific updates needed for TranslationExercise beyond common fields
 
             Exercise savedExercise = exerciseRepository.save(existingExercise);
+            answerGrader.invalidate(exerciseId);
             logger.info("Updated exercise: {}", savedExercise.getId());
             return savedExercise;
         } catch (DataIntegrityViolationException ex) {
@@ -100,11 +109,15 @@ public class ExerciseService {
 
     @Transactional
     public void deleteExercise(UUID exerciseId) {
-        if (!exerciseRepository.existsById(exerciseId)) {
-            throw new NotFoundException("Exercise not found with ID: " + exerciseId);
-        }
+        Exercise exercise = exerciseRepository.findById(exerciseId)
+                .orElseThrow(() -> new NotFoundException("Exercise not found with ID: " + exerciseId));
+        UUID lessonId = exercise.getLesson().getId();
         try {
-            exerciseRepository.deleteById(exerciseId);
+            lessonProgressSummaryRepository.removeExercise(exerciseId, lessonId);
+            exerciseRepository.delete(exercise);
+            lessonRepository.adjustExerciseCount(lessonId, -1);
+            courseProgressCache.invalidateAll();
+            answerGrader.invalidate(exerciseId);
             logger.info("Deleted exercise: {}", exerciseId);
         } catch (DataAccessException ex) {
             logger.error("Database access error when deleting exercise: {}", ex.getMessage());
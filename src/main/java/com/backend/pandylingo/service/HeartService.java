@@ -0,0 +1,84 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.model.UserProfile;
+import com.backend.pandylingo.repository.UserProfileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * The one heart regeneration rule. A profile stores a heart count and the time it was last
+ * accurate ({@code lastHeartRefill}); below the maximum, one heart comes back per interval
+ * since then. Reads compute the effective count without writing; spends first settle the
+ * regenerated hearts into the row, so rows are only written when hearts are actually spent.
+ */
+@Service
+public class HeartService {
+    private final UserProfileRepository userProfileRepository;
+    private final int maxHearts;
+    private final Duration regenInterval;
+
+    public HeartService(
+            UserProfileRepository userProfileRepository,
+            @Value("${hearts.max:5}") int maxHearts,
+            @Value("${hearts.regen-interval-minutes:300}") long regenIntervalMinutes
+    ) {
+        this.userProfileRepository = userProfileRepository;
+        this.maxHearts = maxHearts;
+        this.regenInterval = Duration.ofMinutes(regenIntervalMinutes);
+    }
+
+    public int getMaxHearts() {
+        return maxHearts;
+    }
+
+    public int effectiveHearts(UserProfile profile, LocalDateTime now) {
+        if (profile.getHearts() >= maxHearts) {
+            return profile.getHearts();
+        }
+        // Rows from before regeneration was tracked count as refilled
+        if (profile.getLastHeartRefill() == null) {
+            return maxHearts;
+        }
+        return (int) Math.min(maxHearts, profile.getHearts() + regenerated(profile.getLastHeartRefill(), now));
+    }
+
+    // Null when the hearts are full
+    public LocalDateTime nextHeartAt(UserProfile profile, LocalDateTime now) {
+        if (effectiveHearts(profile, now) >= maxHearts) {
+            return null;
+        }
+        LocalDateTime lastRefill = profile.getLastHeartRefill();
+        return lastRefill.plus(regenInterval.multipliedBy(regenerated(lastRefill, now) + 1));
+    }
+
+    /**
+     * Writes hearts regenerated since the last refill into the row, keeping the time towards
+     * the next heart. Must run inside the caller's transaction, before a conditional spend.
+     * A concurrent settle or spend that got there first wins; the row is then already current.
+     */
+    public void settle(UserProfile profile, LocalDateTime now) {
+        int hearts = profile.getHearts();
+        LocalDateTime lastRefill = profile.getLastHeartRefill();
+        if (hearts >= maxHearts) {
+            return;
+        }
+
+        if (lastRefill == null) {
+            userProfileRepository.settleHearts(profile.getId(), null, maxHearts, now);
+            return;
+        }
+        long regenerated = regenerated(lastRefill, now);
+        if (regenerated > 0) {
+            int settled = (int) Math.min(maxHearts, hearts + regenerated);
+            userProfileRepository.settleHearts(profile.getId(), lastRefill, settled,
+                    lastRefill.plus(regenInterval.multipliedBy(regenerated)));
+        }
+    }
+
+    private long regenerated(LocalDateTime lastRefill, LocalDateTime now) {
+        return now.isAfter(lastRefill) ? Duration.between(lastRefill, now).dividedBy(regenInterval) : 0;
+    }
+}
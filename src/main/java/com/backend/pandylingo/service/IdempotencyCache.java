@@ -0,0 +1,153 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.exception.ConflictException;
+import com.backend.pandylingo.exception.InternalServerErrorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the serialized result of requests sent with an {@code Idempotency-Key}, per user,
+ * for a short time. A retry with the same key gets the stored result without running the
+ * request again; a duplicate that arrives while the first is still running waits for it.
+ * Failed requests are not remembered, so they can be retried.
+ * <p>
+ * Entries expire after the TTL and the oldest are dropped once the cache is full.
+ */
+@Component
+public class IdempotencyCache {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Key(UUID userId, String idempotencyKey) {}
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Completed keys in completion order; with one TTL for all, also expiry order
+    private final Queue<Key> completionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyCache(
+            ObjectMapper objectMapper,
+            @Value("${progress.idempotency.max-entries:50000}") int maxEntries,
+            @Value("${progress.idempotency.ttl-seconds:600}") long ttlSeconds
+    ) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Runs the action once per user and key, and returns its result or the remembered one.
+     * @param fingerprint identifies the request; reusing a key for a different request is a conflict
+     */
+    public <T> T execute(UUID userId, String idempotencyKey, String fingerprint, Class<T> type, Supplier<T> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Key key = new Key(userId, idempotencyKey);
+
+        while (true) {
+            Entry entry = new Entry(fingerprint);
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                return run(key, entry, type, action);
+            }
+            if (existing.expiresAt < System.currentTimeMillis()) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                throw new ConflictException("Idempotency-Key was already used for a different request");
+            }
+            return deserialize(await(existing), type);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${progress.idempotency.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        evict(System.currentTimeMillis(), 0);
+    }
+
+    private <T> T run(Key key, Entry entry, Class<T> type, Supplier<T> action) {
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error ex) {
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+
+        entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+        completionOrder.add(key);
+        try {
+            entry.result.complete(objectMapper.writeValueAsString(result));
+        } catch (JsonProcessingException ex) {
+            // The action has run, so duplicates must not run it again; they get the error instead
+            entry.result.completeExceptionally(new InternalServerErrorException("Failed to store request result"));
+        }
+        evict(System.currentTimeMillis(), maxEntries);
+        return result;
+    }
+
+    // Drops expired entries from the oldest end, and beyond that as many as needed to fit in capacity
+    private void evict(long now, int capacity) {
+        while (true) {
+            Key oldest = completionOrder.peek();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            boolean expired = entry == null || entry.expiresAt < now;
+            if (!expired && (capacity == 0 || entries.size() <= capacity)) {
+                return;
+            }
+            if (completionOrder.remove(oldest) && entry != null) {
+                entries.remove(oldest, entry);
+            }
+        }
+    }
+
+    private static String await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private <T> T deserialize(String serialized, Class<T> type) {
+        try {
+            return objectMapper.readValue(serialized, type);
+        } catch (JsonProcessingException ex) {
+            throw new InternalServerErrorException("Failed to read stored request result");
+        }
+    }
+}
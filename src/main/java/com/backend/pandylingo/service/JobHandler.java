@@ -0,0 +1,16 @@
+package com.backend.pandylingo.service;
+
+/**
+ * Runs the jobs of one type taken from the {@link JobQueue}. A job may run more than once,
+ * after a failure or when a worker stops answering, so handlers must be safe to repeat.
+ */
+public interface JobHandler<T> {
+
+    String type();
+
+    // Payloads are stored as JSON and read back as this type
+    Class<T> payloadType();
+
+    // Throwing schedules a retry with backoff until the job runs out of attempts
+    void handle(T payload) throws Exception;
+}
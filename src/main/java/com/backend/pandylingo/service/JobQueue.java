@@ -0,0 +1,204 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.util.Transactions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable queue of deferred work in the jobs table. Enqueueing inside a transaction commits
+ * the job together with the caller's writes. Workers on any node claim ready jobs with
+ * {@code FOR UPDATE SKIP LOCKED}, so they never wait on each other, and a claim is only valid
+ * until its visibility timeout: a job whose worker dies becomes claimable again.
+ */
+@Component
+public class JobQueue {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO jobs (id, type, payload, status, attempts, max_attempts, run_at, dedupe_key, created_at) " +
+            "VALUES (?, ?, ?, 'QUEUED', 0, ?, CURRENT_TIMESTAMP + make_interval(secs => ?), ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (dedupe_key) DO NOTHING";
+
+    // Ready jobs, and running ones whose worker let the visibility timeout pass
+    private static final String CLAIM_SQL =
+            "UPDATE jobs SET status = 'RUNNING', attempts = attempts + 1, lock_token = ?, " +
+            "locked_until = CURRENT_TIMESTAMP + make_interval(secs => ?) " +
+            "WHERE id = (SELECT id FROM jobs " +
+            "WHERE (status = 'QUEUED' AND run_at <= CURRENT_TIMESTAMP) " +
+            "OR (status = 'RUNNING' AND locked_until < CURRENT_TIMESTAMP AND attempts < max_attempts) " +
+            "ORDER BY run_at LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, type, payload, attempts, max_attempts, " +
+            "EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - run_at) AS lag_seconds";
+
+    // The statements below only apply while the claim is still the caller's
+
+    private static final String COMPLETE_SQL = "DELETE FROM jobs WHERE id = ? AND lock_token = ?";
+
+    private static final String RETRY_SQL =
+            "UPDATE jobs SET status = 'QUEUED', run_at = CURRENT_TIMESTAMP + make_interval(secs => ?), " +
+            "last_error = ?, lock_token = NULL, locked_until = NULL WHERE id = ? AND lock_token = ?";
+
+    // Failed jobs give up their dedupe key so the work can be enqueued again
+    private static final String FAIL_SQL =
+            "UPDATE jobs SET status = 'FAILED', last_error = ?, finished_at = CURRENT_TIMESTAMP, " +
+            "dedupe_key = NULL, lock_token = NULL, locked_until = NULL WHERE id = ? AND lock_token = ?";
+
+    private static final String FAIL_TIMED_OUT_SQL =
+            "UPDATE jobs SET status = 'FAILED', last_error = 'Visibility timeout expired on the last attempt', " +
+            "finished_at = CURRENT_TIMESTAMP, dedupe_key = NULL, lock_token = NULL, locked_until = NULL " +
+            "WHERE status = 'RUNNING' AND locked_until < CURRENT_TIMESTAMP AND attempts >= max_attempts";
+
+    private static final String READY_STATS_SQL =
+            "SELECT COUNT(*) AS ready, COALESCE(EXTRACT(EPOCH FROM CURRENT_TIMESTAMP - MIN(run_at)), 0) AS oldest " +
+            "FROM jobs WHERE status = 'QUEUED' AND run_at <= CURRENT_TIMESTAMP";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    record ClaimedJob(UUID id, UUID lockToken, String type, String payload, int attempts, int maxAttempts,
+                      double lagSeconds) {
+        boolean lastAttempt() {
+            return attempts >= maxAttempts;
+        }
+    }
+
+    record ReadyStats(long ready, double oldestSeconds) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long visibilityTimeoutSeconds;
+
+    // Lets idle local workers claim a new job as soon as it commits instead of at their next poll
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Map<String, Counter> enqueued = new ConcurrentHashMap<>();
+
+    public JobQueue(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.max-attempts:5}") int maxAttempts,
+            @Value("${jobs.visibility-timeout-seconds:300}") long visibilityTimeoutSeconds
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    }
+
+    public UUID enqueue(String type, Object payload) {
+        return enqueue(type, payload, Duration.ZERO);
+    }
+
+    public UUID enqueue(String type, Object payload, Duration delay) {
+        UUID id = UUID.randomUUID();
+        insert(id, type, payload, delay, null);
+        return id;
+    }
+
+    /**
+     * Enqueues the job unless an unfinished job with the same key exists, e.g. to run a
+     * rebuild once when several nodes ask for it.
+     * @return the new job's id, or empty if one was already queued or running
+     */
+    public Optional<UUID> enqueueUnique(String dedupeKey, String type, Object payload) {
+        UUID id = UUID.randomUUID();
+        return insert(id, type, payload, Duration.ZERO, dedupeKey) ? Optional.of(id) : Optional.empty();
+    }
+
+    private boolean insert(UUID id, String type, Object payload, Duration delay, String dedupeKey) {
+        String json;
+        try {
+            json = payload == null ? null : objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Job payload cannot be serialized", ex);
+        }
+
+        boolean inserted = jdbcTemplate.update(INSERT_SQL, id, type, json, maxAttempts,
+                delay.toMillis() / 1000.0, dedupeKey) > 0;
+        if (inserted) {
+            Transactions.afterCommit(() -> {
+                enqueued.computeIfAbsent(type, jobType -> Counter.builder("jobs.enqueued")
+                        .tag("type", jobType)
+                        .register(meterRegistry)).increment();
+                if (delay.isZero()) {
+                    signal();
+                }
+            });
+        }
+        return inserted;
+    }
+
+    Optional<ClaimedJob> claim() {
+        UUID lockToken = UUID.randomUUID();
+        List<ClaimedJob> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, _) -> new ClaimedJob(
+                rs.getObject("id", UUID.class),
+                lockToken,
+                rs.getString("type"),
+                rs.getString("payload"),
+                rs.getInt("attempts"),
+                rs.getInt("max_attempts"),
+                rs.getDouble("lag_seconds")
+        ), lockToken, (double) visibilityTimeoutSeconds);
+        return claimed.stream().findFirst();
+    }
+
+    // False if the claim had expired and another worker took the job over
+    boolean complete(ClaimedJob job) {
+        return jdbcTemplate.update(COMPLETE_SQL, job.id(), job.lockToken()) > 0;
+    }
+
+    boolean retry(ClaimedJob job, Duration backoff, String error) {
+        return jdbcTemplate.update(RETRY_SQL, backoff.toMillis() / 1000.0, truncate(error),
+                job.id(), job.lockToken()) > 0;
+    }
+
+    boolean fail(ClaimedJob job, String error) {
+        return jdbcTemplate.update(FAIL_SQL, truncate(error), job.id(), job.lockToken()) > 0;
+    }
+
+    // Jobs whose worker died on their last attempt would otherwise stay RUNNING forever
+    int failTimedOut() {
+        return jdbcTemplate.update(FAIL_TIMED_OUT_SQL);
+    }
+
+    ReadyStats readyStats() {
+        return jdbcTemplate.queryForObject(READY_STATS_SQL,
+                (rs, _) -> new ReadyStats(rs.getLong("ready"), rs.getDouble("oldest")));
+    }
+
+    // Waits for a local enqueue or until the timeout passes
+    void awaitWork(long timeoutMillis) throws InterruptedException {
+        wakeups.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // One permit is enough: a woken worker keeps claiming until the queue is empty
+    private void signal() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    // Wakes every waiting worker, e.g. on shutdown
+    void wakeAll(int workers) {
+        wakeups.release(workers);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,233 @@
+package com.backend.pandylingo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Worker threads that take jobs from the {@link JobQueue} and hand them to the
+ * {@link JobHandler} for their type. A failed job is retried with exponential backoff until
+ * it runs out of attempts and is marked failed. Every node with workers enabled takes part,
+ * so throughput grows with the number of nodes.
+ * <p>
+ * On shutdown workers stop claiming and finish the jobs they hold; a job still running when
+ * the wait ends is picked up again elsewhere once its visibility timeout passes.
+ */
+@Component
+public class JobWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(JobWorkerPool.class);
+
+    private final JobQueue jobQueue;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, JobHandler<?>> handlers = new HashMap<>();
+
+    private final boolean enabled;
+    private final int workers;
+    private final long pollIntervalMillis;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final long shutdownTimeoutMillis;
+
+    private final AtomicLong readyJobs = new AtomicLong();
+    private final AtomicLong oldestReadySeconds = new AtomicLong();
+    private final Map<String, Counter> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, Timer> durations = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> lags = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private final List<Thread> threads = new ArrayList<>();
+
+    public JobWorkerPool(
+            JobQueue jobQueue,
+            List<JobHandler<?>> handlers,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${jobs.workers.enabled:true}") boolean enabled,
+            @Value("${jobs.workers.count:4}") int workers,
+            @Value("${jobs.workers.poll-interval-ms:1000}") long pollIntervalMillis,
+            @Value("${jobs.backoff.base-ms:1000}") long backoffBaseMillis,
+            @Value("${jobs.backoff.max-ms:600000}") long backoffMaxMillis,
+            @Value("${jobs.workers.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds
+    ) {
+        this.jobQueue = jobQueue;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        for (JobHandler<?> handler : handlers) {
+            if (this.handlers.put(handler.type(), handler) != null) {
+                throw new IllegalStateException("More than one handler for job type " + handler.type());
+            }
+        }
+        this.enabled = enabled;
+        this.workers = workers;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.shutdownTimeoutMillis = TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds);
+
+        Gauge.builder("jobs.ready", readyJobs, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("jobs.ready.oldest.seconds", oldestReadySeconds, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::runWorker, "job-worker-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (threads.isEmpty()) {
+            return;
+        }
+        running = false;
+        jobQueue.wakeAll(threads.size());
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        logger.info("Job workers stopped");
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                Optional<JobQueue.ClaimedJob> job = jobQueue.claim();
+                if (job.isPresent()) {
+                    process(job.get());
+                } else {
+                    jobQueue.awaitWork(pollIntervalMillis);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException ex) {
+                logger.warn("Failed to claim a job, retrying in {} ms", pollIntervalMillis, ex);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(JobQueue.ClaimedJob job) {
+        lags.computeIfAbsent(job.type(), type -> DistributionSummary.builder("jobs.lag")
+                .baseUnit("seconds")
+                .tag("type", type)
+                .register(meterRegistry)).record(Math.max(0, job.lagSeconds()));
+
+        JobHandler<?> handler = handlers.get(job.type());
+        if (handler == null) {
+            finish(job, "failed", () -> jobQueue.fail(job, "No handler for job type " + job.type()));
+            return;
+        }
+
+        Object payload;
+        try {
+            payload = job.payload() == null ? null : objectMapper.readValue(job.payload(), handler.payloadType());
+        } catch (Exception ex) {
+            finish(job, "failed", () -> jobQueue.fail(job, "Unreadable payload: " + ex.getMessage()));
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            run(handler, payload);
+        } catch (Exception ex) {
+            if (job.lastAttempt()) {
+                logger.error("Job {} of type {} failed on its last attempt", job.id(), job.type(), ex);
+                finish(job, "failed", () -> jobQueue.fail(job, describe(ex)));
+            } else {
+                Duration backoff = backoff(job.attempts());
+                logger.warn("Job {} of type {} failed on attempt {}, retrying in {}",
+                        job.id(), job.type(), job.attempts(), backoff, ex);
+                finish(job, "retried", () -> jobQueue.retry(job, backoff, describe(ex)));
+            }
+            return;
+        } finally {
+            timer(job.type()).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        finish(job, "succeeded", () -> jobQueue.complete(job));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void run(JobHandler<T> handler, Object payload) throws Exception {
+        handler.handle((T) payload);
+    }
+
+    // A claim that expired mid-run belongs to another worker now, so its result is not recorded
+    private void finish(JobQueue.ClaimedJob job, String outcome, BooleanSupplier update) {
+        try {
+            if (!update.getAsBoolean()) {
+                logger.warn("Job {} of type {} outlived its visibility timeout", job.id(), job.type());
+                outcome = "expired";
+            }
+        } catch (DataAccessException ex) {
+            // The claim expires and the job runs again
+            logger.warn("Failed to record the result of job {}", job.id(), ex);
+            outcome = "unrecorded";
+        }
+        String recorded = outcome;
+        outcomes.computeIfAbsent(job.type() + "/" + recorded, _ -> Counter.builder("jobs.completed")
+                .tag("type", job.type())
+                .tag("outcome", recorded)
+                .register(meterRegistry)).increment();
+    }
+
+    // Exponential with jitter, so jobs that failed together do not retry together
+    private Duration backoff(int attempts) {
+        long delay = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(attempts - 1, 20));
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    private Timer timer(String type) {
+        return durations.computeIfAbsent(type, jobType -> Timer.builder("jobs.duration")
+                .tag("type", jobType)
+                .register(meterRegistry));
+    }
+
+    private static String describe(Exception ex) {
+        return ex.getClass().getSimpleName() + (ex.getMessage() == null ? "" : ": " + ex.getMessage());
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.maintenance-interval-ms:30000}")
+    public void maintain() {
+        int timedOut = jobQueue.failTimedOut();
+        if (timedOut > 0) {
+            logger.warn("Marked {} jobs failed after their last attempt timed out", timedOut);
+        }
+        JobQueue.ReadyStats stats = jobQueue.readyStats();
+        readyJobs.set(stats.ready());
+        oldestReadySeconds.set((long) stats.oldestSeconds());
+    }
+}
@@ -0,0 +1,469 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.dto.user.LeaderboardEntryDTO;
+import com.backend.pandylingo.dto.user.LeaderboardPage;
+import com.backend.pandylingo.dto.user.LeaderboardRow;
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.model.LeaderboardWindow;
+import com.backend.pandylingo.model.UserProfile;
+import com.backend.pandylingo.model.XpBucket;
+import com.backend.pandylingo.repository.FriendshipRepository;
+import com.backend.pandylingo.repository.UserProfileRepository;
+import com.backend.pandylingo.repository.XpBucketRepository;
+import com.backend.pandylingo.util.Transactions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory leaderboards for the all-time, weekly and monthly windows. Each window keeps
+ * its users in an order-statistic tree keyed by xp, so top-N and "my rank ± range" are
+ * answered in O(log n + k) without touching the DB.
+ * <p>
+ * All-time xp comes from user profiles; weekly and monthly xp come from {@link XpBucket}
+ * rows incremented on every submission. When a period ends the window index is replaced
+ * by an empty one, so rollover is O(1). The indexes are loaded at startup and periodically
+ * reloaded to pick up writes made by other nodes. Changes made on this node while a reload
+ * runs are carried over into the reloaded indexes, so the swap never loses them.
+ * <p>
+ * Deep browsing uses an opaque (xp, user id) cursor rather than an offset, so a page stays
+ * stable while users above it gain xp.
+ */
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final UserProfileRepository userProfileRepository;
+    private final XpBucketRepository xpBucketRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${leaderboard.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${leaderboard.reload-batch-size:5000}")
+    private int reloadBatchSize;
+
+    private static final class WindowIndex {
+        final String periodKey;
+        final Map<UUID, Integer> xpByUser = new HashMap<>();
+        final XpRankTree tree = new XpRankTree();
+
+        WindowIndex(String periodKey) {
+            this.periodKey = periodKey;
+        }
+
+        void put(UUID userId, int xp) {
+            Integer previous = xpByUser.put(userId, xp);
+            if (previous != null) {
+                tree.remove(previous, userId);
+            }
+            tree.insert(xp, userId);
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Display fields and all-time xp per user
+    private Map<UUID, LeaderboardRow> rows = new HashMap<>();
+    private final Map<LeaderboardWindow, WindowIndex> windows = new EnumMap<>(LeaderboardWindow.class);
+    // Users updated on this node since the running reload started reading, null when no reload runs
+    private Set<UUID> rowsChangedDuringReload;
+    private Set<UUID> bucketsChangedDuringReload;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.reload-interval-ms:600000}")
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            rowsChangedDuringReload = new HashSet<>();
+            bucketsChangedDuringReload = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            swap(load());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                rowsChangedDuringReload = null;
+                bucketsChangedDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private record Snapshot(Map<UUID, LeaderboardRow> rows, Map<LeaderboardWindow, WindowIndex> windows) {
+    }
+
+    private Snapshot load() {
+        LocalDate today = LocalDate.now();
+        Map<UUID, LeaderboardRow> newRows = new HashMap<>();
+        Map<LeaderboardWindow, WindowIndex> newWindows = new EnumMap<>(LeaderboardWindow.class);
+        WindowIndex allTime = new WindowIndex(LeaderboardWindow.ALL.periodKey(today));
+
+        // Keyset pages keep each result set bounded instead of pulling the whole table at once
+        PageRequest batch = PageRequest.of(0, reloadBatchSize);
+        List<LeaderboardRow> loaded = userProfileRepository.findLeaderboardRows(batch);
+        while (!loaded.isEmpty()) {
+            for (LeaderboardRow row : loaded) {
+                newRows.put(row.userId(), row);
+                allTime.put(row.userId(), row.xpPoints());
+            }
+            if (loaded.size() < reloadBatchSize) {
+                break;
+            }
+            LeaderboardRow last = loaded.getLast();
+            loaded = userProfileRepository.findLeaderboardRowsAfter(last.xpPoints(), last.userId(), batch);
+        }
+        newWindows.put(LeaderboardWindow.ALL, allTime);
+
+        for (LeaderboardWindow window : List.of(LeaderboardWindow.WEEK, LeaderboardWindow.MONTH)) {
+            WindowIndex index = new WindowIndex(window.periodKey(today));
+            for (XpBucket bucket : xpBucketRepository.findByPeriodTypeAndPeriodKey(window, index.periodKey)) {
+                index.put(bucket.getUserId(), bucket.getXp());
+            }
+            newWindows.put(window, index);
+        }
+        return new Snapshot(newRows, newWindows);
+    }
+
+    /*
+     * A change committed while the snapshot was read may or may not be in it. Profile rows are
+     * absolute, so the latest one seen here is applied again. Buckets only grow, so each
+     * changed user keeps the higher of the loaded and live xp and nothing is counted twice.
+     */
+    private void swap(Snapshot snapshot) {
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            for (UUID userId : rowsChangedDuringReload) {
+                LeaderboardRow live = rows.get(userId);
+                if (live != null) {
+                    snapshot.rows().put(userId, live);
+                    snapshot.windows().get(LeaderboardWindow.ALL).put(userId, live.xpPoints());
+                }
+            }
+            for (UUID userId : bucketsChangedDuringReload) {
+                for (LeaderboardWindow window : List.of(LeaderboardWindow.WEEK, LeaderboardWindow.MONTH)) {
+                    WindowIndex liveIndex = windows.get(window);
+                    WindowIndex loadedIndex = snapshot.windows().get(window);
+                    if (liveIndex == null || !liveIndex.periodKey.equals(loadedIndex.periodKey)) {
+                        continue;
+                    }
+                    Integer liveXp = liveIndex.xpByUser.get(userId);
+                    if (liveXp != null && liveXp > loadedIndex.xpByUser.getOrDefault(userId, -1)) {
+                        loadedIndex.put(userId, liveXp);
+                    }
+                }
+            }
+            replayed = rowsChangedDuringReload.size() + bucketsChangedDuringReload.size();
+
+            rows = snapshot.rows();
+            windows.put(LeaderboardWindow.ALL, snapshot.windows().get(LeaderboardWindow.ALL));
+            // A period may have rolled over during the load, and recordXp may already have
+            // started the new one; the index loaded for the period that ended must not replace it
+            LocalDate today = LocalDate.now();
+            for (LeaderboardWindow window : List.of(LeaderboardWindow.WEEK, LeaderboardWindow.MONTH)) {
+                WindowIndex liveIndex = windows.get(window);
+                WindowIndex loadedIndex = snapshot.windows().get(window);
+                if (liveIndex == null || liveIndex.periodKey.equals(loadedIndex.periodKey)
+                        || loadedIndex.periodKey.equals(window.periodKey(today))) {
+                    windows.put(window, loadedIndex);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (replayed > 0) {
+            Counter.builder("leaderboard.reload.replayed").register(meterRegistry).increment(replayed);
+            logger.info("Replayed {} leaderboard changes made during the reload", replayed);
+        }
+        logger.info("Loaded {} users into the leaderboard index", snapshot.rows().size());
+    }
+
+    public List<LeaderboardEntryDTO> getTop(LeaderboardWindow window, int limit, UUID currentUserId) {
+        lock.readLock().lock();
+        try {
+            WindowIndex index = currentIndex(window);
+            if (index == null) {
+                return List.of();
+            }
+            return toEntries(index, 0, clampLimit(limit), currentUserId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the page of entries ranked strictly after the cursor, or the first page when
+     * the cursor is null. Ranks are absolute positions in the window.
+     */
+    public LeaderboardPage getPage(LeaderboardWindow window, String cursor, int limit, UUID currentUserId) {
+        int count = clampLimit(limit);
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+
+        lock.readLock().lock();
+        try {
+            WindowIndex index = currentIndex(window);
+            if (index == null) {
+                return LeaderboardPage.builder().entries(List.of()).build();
+            }
+
+            int start = 0;
+            if (after != null) {
+                // Entries strictly above the cursor key, plus the key itself if it is still ranked
+                start = index.tree.rankOf(after.xp(), after.userId());
+                if (Objects.equals(index.xpByUser.get(after.userId()), after.xp())) {
+                    start++;
+                }
+            }
+
+            List<LeaderboardEntryDTO> entries = toEntries(index, start, count, currentUserId);
+            String nextCursor = null;
+            if (!entries.isEmpty() && start + entries.size() < index.tree.size()) {
+                LeaderboardEntryDTO last = entries.getLast();
+                nextCursor = new Cursor(last.getXpPoints(), last.getUserId()).encode();
+            }
+            return LeaderboardPage.builder().entries(entries).nextCursor(nextCursor).build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns an empty list when the user is not ranked in the window
+    public List<LeaderboardEntryDTO> getAround(LeaderboardWindow window, UUID userId, int range) {
+        if (window == LeaderboardWindow.ALL) {
+            ensureRanked(userId);
+        }
+        // Bounded so the slice around the user never exceeds one page
+        int span = Math.clamp(range, 0, maxPageSize / 2);
+
+        lock.readLock().lock();
+        try {
+            WindowIndex index = currentIndex(window);
+            Integer xp = index == null ? null : index.xpByUser.get(userId);
+            if (xp == null) {
+                return List.of();
+            }
+
+            int position = index.tree.rankOf(xp, userId);
+            int start = Math.max(0, position - span);
+            int end = Math.min(index.tree.size(), position + span + 1);
+            return toEntries(index, start, end - start, userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the user against their accepted friends. Friend ids come from a single id-only
+     * query and xp, streak and display fields from the in-memory index, so the cost is one
+     * query plus O(f log f) regardless of how many friends the user has.
+     */
+    public List<LeaderboardEntryDTO> getFriends(LeaderboardWindow window, UUID userId) {
+        List<UUID> friendIds = friendshipRepository.findAcceptedFriendIds(userId);
+        Set<UUID> members = new HashSet<>(friendIds.size() * 2 + 2);
+        members.addAll(friendIds);
+        members.add(userId);
+
+        lock.readLock().lock();
+        try {
+            WindowIndex index = currentIndex(window);
+            List<LeaderboardEntryDTO> entries = new ArrayList<>(members.size());
+            for (UUID memberId : members) {
+                LeaderboardRow row = rows.get(memberId);
+                if (row == null) {
+                    // No profile yet
+                    continue;
+                }
+                Integer xp = index == null ? null : index.xpByUser.get(memberId);
+                entries.add(LeaderboardEntryDTO.builder()
+                        .userId(memberId)
+                        .fullName(row.fullName())
+                        .avatarUrl(row.avatarUrl())
+                        .xpPoints(xp != null ? xp : 0)
+                        .streak(row.streak())
+                        .isCurrentUser(memberId.equals(userId))
+                        .build());
+            }
+
+            // Same order as the global ranking: xp descending, then user id
+            entries.sort(Comparator.comparingInt(LeaderboardEntryDTO::getXpPoints).reversed()
+                    .thenComparing(LeaderboardEntryDTO::getUserId));
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).setRank(i + 1);
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records the profile's current xp and display fields for the all-time window. Inside a
+     * transaction the change is applied after commit so a rollback never leaks into the ranking.
+     */
+    public void update(UserProfile profile) {
+        LeaderboardRow row = new LeaderboardRow(
+                profile.getUser().getId(),
+                profile.getUser().getFullName(),
+                profile.getAvatarUrl(),
+                profile.getXpPoints(),
+                profile.getStreak()
+        );
+
+        Transactions.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                rows.put(row.userId(), row);
+                windows.computeIfAbsent(LeaderboardWindow.ALL, w -> new WindowIndex(w.periodKey(LocalDate.now())))
+                        .put(row.userId(), row.xpPoints());
+                if (rowsChangedDuringReload != null) {
+                    rowsChangedDuringReload.add(row.userId());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Adds earned xp to the user's weekly and monthly buckets. Must run in the
+     * transaction that writes the corresponding progress rows.
+     */
+    @Transactional
+    public void recordXp(UUID userId, int xp, LocalDate earnedOn) {
+        if (xp <= 0) {
+            return;
+        }
+
+        List<LeaderboardWindow> periodic = List.of(LeaderboardWindow.WEEK, LeaderboardWindow.MONTH);
+        for (LeaderboardWindow window : periodic) {
+            xpBucketRepository.addXp(userId, window.name(), window.periodKey(earnedOn), xp);
+        }
+
+        Transactions.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                for (LeaderboardWindow window : periodic) {
+                    String periodKey = window.periodKey(earnedOn);
+                    if (!periodKey.equals(window.periodKey(LocalDate.now()))) {
+                        // Late write for a period that has already rolled over; the bucket row is enough
+                        continue;
+                    }
+
+                    WindowIndex index = windows.get(window);
+                    if (index == null || !index.periodKey.equals(periodKey)) {
+                        // New period: start from an empty index instead of rewriting the old one
+                        index = new WindowIndex(periodKey);
+                        windows.put(window, index);
+                    }
+                    index.put(userId, index.xpByUser.getOrDefault(userId, 0) + xp);
+                }
+                if (bucketsChangedDuringReload != null) {
+                    bucketsChangedDuringReload.add(userId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Users registered on another node since the last reload are pulled in with one projection query
+    private void ensureRanked(UUID userId) {
+        lock.readLock().lock();
+        try {
+            if (rows.containsKey(userId)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        userProfileRepository.findLeaderboardRowByUserId(userId).ifPresent(row -> {
+            lock.writeLock().lock();
+            try {
+                if (rows.putIfAbsent(row.userId(), row) == null) {
+                    windows.computeIfAbsent(LeaderboardWindow.ALL, w -> new WindowIndex(w.periodKey(LocalDate.now())))
+                            .put(row.userId(), row.xpPoints());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private int clampLimit(int limit) {
+        return Math.clamp(limit, 0, maxPageSize);
+    }
+
+    record Cursor(int xp, UUID userId) {
+        String encode() {
+            String raw = xp + ":" + userId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new Cursor(Integer.parseInt(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                throw new BadRequestException("Invalid leaderboard cursor");
+            }
+        }
+    }
+
+    // Caller must hold the lock. A window whose period has ended without new writes counts as empty.
+    private WindowIndex currentIndex(LeaderboardWindow window) {
+        WindowIndex index = windows.get(window);
+        if (index == null || !index.periodKey.equals(window.periodKey(LocalDate.now()))) {
+            return null;
+        }
+        return index;
+    }
+
+    // Caller must hold the read lock
+    private List<LeaderboardEntryDTO> toEntries(WindowIndex index, int start, int count, UUID currentUserId) {
+        List<UUID> userIds = new ArrayList<>(Math.min(count, index.tree.size()));
+        index.tree.collect(start, count, userIds);
+
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(userIds.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            UUID userId = userIds.get(i);
+            LeaderboardRow row = rows.get(userId);
+            entries.add(LeaderboardEntryDTO.builder()
+                    .userId(userId)
+                    .fullName(row != null ? row.fullName() : null)
+                    .avatarUrl(row != null ? row.avatarUrl() : null)
+                    .xpPoints(index.xpByUser.get(userId))
+                    .streak(row != null ? row.streak() : 0)
+                    .rank(start + i + 1)
+                    .isCurrentUser(userId.equals(currentUserId))
+                    .build());
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,46 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.repository.LessonRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recounts every lesson's exercises from the exercises table, correcting any drift in the
+ * counts ExerciseService maintains. Queued at startup so that it runs once on some worker,
+ * however many nodes start together. lesson_progress_summary is backfilled by its migration.
+ */
+@Component
+@RequiredArgsConstructor
+public class LessonExerciseRecountJob implements JobHandler<Void> {
+    private static final Logger logger = LoggerFactory.getLogger(LessonExerciseRecountJob.class);
+
+    static final String TYPE = "lesson-exercise-recount";
+
+    private final JobQueue jobQueue;
+    private final LessonRepository lessonRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void enqueue() {
+        jobQueue.enqueueUnique(TYPE, TYPE, null);
+    }
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public Class<Void> payloadType() {
+        return Void.class;
+    }
+
+    @Override
+    public void handle(Void payload) {
+        int lessons = lessonRepository.recountExercises();
+        logger.info("Recounted exercises of {} lessons", lessons);
+    }
+}
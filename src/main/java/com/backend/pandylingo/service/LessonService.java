@@ -15,7 +15,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,6 +23,8 @@ import java.util.stream.Collectors;
 public class LessonService {
     private final LessonRepository lessonRepository;
     private final AppStatsService appStatsService;
+    private final CourseProgressCache courseProgressCache;
+    private final AnswerGrader answerGrader;
 
     @Transactional(readOnly = true)
     public LessonDTO getLessonById(UUID lessonId) {
@@ -51,11 +52,8 @@ public class LessonService {
     @Transactional(readOnly = true)
     public int countExercisesInLesson(UUID lessonId) {
         try {
-            Optional<Lesson> lesson = lessonRepository.findById(lessonId);
-            if (lesson.isPresent()) {
-                return lesson.get().getExercises().size();
-            }
-            throw new NotFoundException("Lesson not found");
+            return lessonRepository.findExerciseCount(lessonId)
+                    .orElseThrow(() -> new NotFoundException("Lesson not found"));
         } catch (DataAccessException ex) {
             throw new InternalServerErrorException("Failed to count exercises");
         }
@@ -73,6 +71,7 @@ public class LessonService {
             Lesson savedLesson = lessonRepository.save(newLesson);
 
             appStatsService.incrementLessonsCount();
+            courseProgressCache.invalidateAll();
             return savedLesson;
         } catch (DataIntegrityViolationException ex) {
             throw new BadRequestException("Invalid lesson data", ex.getMostSpecificCause().getMessage());
@@ -95,7 +94,11 @@ public class LessonService {
                 }
             }
 
-            return lessonRepository.save(lesson);
+            Lesson saved = lessonRepository.save(lesson);
+            // Language or difficulty may have moved the lesson to another course
+            courseProgressCache.invalidateAll();
+            answerGrader.invalidateAll();
+            return saved;
         } catch (ObjectOptimisticLockingFailureException ex) {
             throw new ConflictException("Lesson was modified by another user. Refresh and try again.");
         } catch (DataIntegrityViolationException ex) {
@@ -113,6 +116,7 @@ public class LessonService {
 
             lessonRepository.delete(lesson);
             appStatsService.decrementLessons();
+            courseProgressCache.invalidateAll();
         } catch (DataAccessException ex) {
             throw new InternalServerErrorException("Failed to delete lesson");
         }
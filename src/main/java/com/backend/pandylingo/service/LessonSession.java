@@ -0,0 +1,61 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.model.AnswerOutcome;
+import com.backend.pandylingo.model.Exercise;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * A user's pass through one lesson. Holds the lesson's exercises as the answer key and the
+ * graded answers that have not been written yet. Guarded by its own monitor.
+ */
+class LessonSession {
+
+    record Answer(UUID exerciseId, AnswerOutcome outcome, String userAnswer, int xpEarned, int heartsUsed,
+                  LocalDateTime answeredAt) {
+        boolean correct() {
+            return outcome != AnswerOutcome.INCORRECT;
+        }
+    }
+
+    final UUID id = UUID.randomUUID();
+    final UUID userId;
+    final UUID lessonId;
+
+    // Insertion-ordered so pending exercises come back in lesson order
+    final Map<UUID, Exercise> answerKey;
+    final Set<UUID> completedBefore;
+    final Map<UUID, Answer> answers = new LinkedHashMap<>();
+    int heartsRemaining;
+
+    volatile long lastAccessMillis = System.currentTimeMillis();
+    boolean closed;
+
+    LessonSession(UUID userId, UUID lessonId, List<Exercise> exercises, Collection<UUID> completedBefore, int hearts) {
+        this.userId = userId;
+        this.lessonId = lessonId;
+        this.answerKey = new LinkedHashMap<>();
+        for (Exercise exercise : exercises) {
+            answerKey.put(exercise.getId(), exercise);
+        }
+        this.completedBefore = new HashSet<>(completedBefore);
+        this.heartsRemaining = hearts;
+    }
+
+    boolean isAnswered(UUID exerciseId) {
+        return answers.containsKey(exerciseId) || completedBefore.contains(exerciseId);
+    }
+
+    List<UUID> pendingExerciseIds() {
+        return answerKey.keySet().stream().filter(id -> !isAnswered(id)).toList();
+    }
+
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    boolean isIdle(long idleTimeoutMillis) {
+        return System.currentTimeMillis() - lastAccessMillis > idleTimeoutMillis;
+    }
+}
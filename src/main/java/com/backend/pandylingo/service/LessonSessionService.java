@@ -0,0 +1,287 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.dto.progress.LessonSessionResponse;
+import com.backend.pandylingo.dto.progress.UserProgressResponse;
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.exception.ConflictException;
+import com.backend.pandylingo.exception.NotFoundException;
+import com.backend.pandylingo.exception.ServiceUnavailableException;
+import com.backend.pandylingo.model.Exercise;
+import com.backend.pandylingo.model.Lesson;
+import com.backend.pandylingo.model.UserProfile;
+import com.backend.pandylingo.model.UserProgress;
+import com.backend.pandylingo.repository.ExerciseRepository;
+import com.backend.pandylingo.repository.LessonRepository;
+import com.backend.pandylingo.repository.UserProfileRepository;
+import com.backend.pandylingo.repository.UserProgressRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side lesson sessions. Starting a session loads the lesson's exercises once and keeps
+ * them as the answer key, so each answer is graded in memory without touching the database.
+ * All graded answers and the summed profile change are written together when the session
+ * completes.
+ * <p>
+ * A user has at most one open session, sessions idle for longer than the timeout are
+ * discarded, and new sessions are refused once the configured maximum is reached.
+ */
+@Service
+public class LessonSessionService {
+    private static final Logger logger = LoggerFactory.getLogger(LessonSessionService.class);
+
+    private final ProgressService progressService;
+    private final UserProfileRepository userProfileRepository;
+    private final ExerciseRepository exerciseRepository;
+    private final LessonRepository lessonRepository;
+    private final UserProgressRepository progressRepository;
+    private final ProgressWriteBuffer progressWriteBuffer;
+    private final AnswerGrader answerGrader;
+    private final HeartService heartService;
+
+    private final int maxSessions;
+    private final long idleTimeoutMillis;
+
+    private final Map<UUID, LessonSession> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> sessionIdsByUser = new ConcurrentHashMap<>();
+
+    public LessonSessionService(
+            ProgressService progressService,
+            UserProfileRepository userProfileRepository,
+            ExerciseRepository exerciseRepository,
+            LessonRepository lessonRepository,
+            UserProgressRepository progressRepository,
+            ProgressWriteBuffer progressWriteBuffer,
+            AnswerGrader answerGrader,
+            HeartService heartService,
+            MeterRegistry meterRegistry,
+            @Value("${progress.session.max-sessions:10000}") int maxSessions,
+            @Value("${progress.session.idle-timeout-seconds:1800}") long idleTimeoutSeconds
+    ) {
+        this.progressService = progressService;
+        this.userProfileRepository = userProfileRepository;
+        this.exerciseRepository = exerciseRepository;
+        this.lessonRepository = lessonRepository;
+        this.progressRepository = progressRepository;
+        this.progressWriteBuffer = progressWriteBuffer;
+        this.answerGrader = answerGrader;
+        this.heartService = heartService;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutSeconds * 1000;
+
+        Gauge.builder("lesson.sessions.active", sessions, Map::size).register(meterRegistry);
+    }
+
+    public LessonSessionResponse start(UUID userId, UUID lessonId) {
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+
+        List<Exercise> exercises = exerciseRepository.findByLessonId(lessonId);
+        if (exercises.isEmpty() && !lessonRepository.existsById(lessonId)) {
+            throw new NotFoundException(Lesson.class, lessonId);
+        }
+        List<UUID> completed = new ArrayList<>(progressRepository.findCompletedExerciseIds(userProfile.getId(), lessonId));
+        progressWriteBuffer.pendingFor(userId).forEach(pending -> completed.add(pending.exerciseId()));
+
+        LessonSession session = new LessonSession(userId, lessonId, exercises, completed,
+                heartService.effectiveHearts(userProfile, LocalDateTime.now()));
+
+        // Starting a new lesson abandons the previous one
+        UUID previousId = sessionIdsByUser.put(userId, session.id);
+        if (previousId != null) {
+            discard(sessions.get(previousId));
+        }
+
+        if (sessions.size() >= maxSessions) {
+            evictIdleSessions();
+            if (sessions.size() >= maxSessions) {
+                sessionIdsByUser.remove(userId, session.id);
+                throw new ServiceUnavailableException("Too many active lesson sessions, try again later");
+            }
+        }
+        sessions.put(session.id, session);
+
+        synchronized (session) {
+            return toResponse(session);
+        }
+    }
+
+    public UserProgressResponse answer(UUID userId, UUID sessionId, UUID exerciseId, String answer) {
+        LessonSession session = getSession(userId, sessionId);
+
+        synchronized (session) {
+            if (session.closed) {
+                throw new NotFoundException("Lesson session not found");
+            }
+            session.touch();
+
+            Exercise exercise = session.answerKey.get(exerciseId);
+            if (exercise == null) {
+                throw new BadRequestException("Exercise is not part of this lesson");
+            }
+            if (session.isAnswered(exerciseId)) {
+                throw new ConflictException("Exercise already completed");
+            }
+            if (answer == null) {
+                throw new BadRequestException("Answer is required");
+            }
+
+            if (session.heartsRemaining < exercise.getHeartsCost()) {
+                throw new ProgressService.NotEnoughHeartsException("Not enough hearts to attempt this exercise");
+            }
+
+            AnswerGrader.Grade grade = answerGrader.grade(exercise, answer);
+            int heartsUsed = grade.heartsUsed();
+            LessonSession.Answer graded = new LessonSession.Answer(
+                    exerciseId, grade.outcome(), answer, grade.xpEarned(), heartsUsed, LocalDateTime.now());
+            session.answers.put(exerciseId, graded);
+            session.heartsRemaining -= heartsUsed;
+
+            // Not persisted yet, so there is no progress id until the session completes
+            return UserProgressResponse.builder()
+                    .exerciseId(exerciseId)
+                    .exerciseType(exercise.getClass().getSimpleName())
+                    .question(exercise.getQuestion())
+                    .completed(true)
+                    .correct(grade.correct())
+                    .outcome(grade.outcome())
+                    .completedAt(graded.answeredAt())
+                    .userAnswer(answer)
+                    .xpEarned(graded.xpEarned())
+                    .heartsUsed(heartsUsed)
+                    .build();
+        }
+    }
+
+    public LessonSessionResponse complete(UUID userId, UUID sessionId) {
+        LessonSession session = getSession(userId, sessionId);
+
+        List<LessonSession.Answer> answers;
+        List<UUID> pendingExerciseIds;
+        synchronized (session) {
+            if (session.closed) {
+                throw new NotFoundException("Lesson session not found");
+            }
+            // Closed so no answer lands after the snapshot, but kept until the answers are written
+            session.closed = true;
+            answers = List.copyOf(session.answers.values());
+            pendingExerciseIds = session.pendingExerciseIds();
+        }
+
+        List<UserProgress> saved = List.of();
+        try {
+            if (!answers.isEmpty()) {
+                saved = progressService.saveLessonAnswers(userId, session.lessonId, answers);
+                logger.debug("Saved {} of {} answers for lesson session {}", saved.size(), answers.size(), sessionId);
+            }
+        } catch (RuntimeException ex) {
+            reopen(session);
+            throw ex;
+        }
+        discard(session);
+
+        // Answers may have been dropped while saving, so the summary counts only the saved rows
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        int correct = 0;
+        int xpEarned = 0;
+        int heartsUsed = 0;
+        for (UserProgress progress : saved) {
+            correct += progress.isCorrect() ? 1 : 0;
+            xpEarned += progress.getXpEarned();
+            heartsUsed += progress.getHeartsUsed();
+        }
+        return LessonSessionResponse.builder()
+                .sessionId(session.id)
+                .lessonId(session.lessonId)
+                .pendingExerciseIds(pendingExerciseIds)
+                .answeredExercises(saved.size())
+                .correctExercises(correct)
+                .xpEarned(xpEarned)
+                .heartsUsed(heartsUsed)
+                .heartsRemaining(heartService.effectiveHearts(userProfile, LocalDateTime.now()))
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${progress.session.sweep-interval-ms:60000}")
+    public void evictIdleSessions() {
+        int evicted = 0;
+        for (LessonSession session : sessions.values()) {
+            if (session.isIdle(idleTimeoutMillis)) {
+                synchronized (session) {
+                    if (!session.closed && session.isIdle(idleTimeoutMillis)) {
+                        discard(session);
+                        evicted++;
+                    }
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.info("Discarded {} idle lesson sessions", evicted);
+        }
+    }
+
+    private LessonSession getSession(UUID userId, UUID sessionId) {
+        LessonSession session = sessions.get(sessionId);
+        if (session == null || !session.userId.equals(userId)) {
+            throw new NotFoundException("Lesson session not found");
+        }
+        return session;
+    }
+
+    private void discard(LessonSession session) {
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            session.closed = true;
+        }
+        sessions.remove(session.id, session);
+        sessionIdsByUser.remove(session.userId, session.id);
+    }
+
+    // Nothing was written, so the user can complete again unless a new lesson replaced this one meanwhile
+    private void reopen(LessonSession session) {
+        synchronized (session) {
+            if (sessions.get(session.id) == session) {
+                session.closed = false;
+                session.touch();
+            }
+        }
+    }
+
+    // Caller must hold the session's monitor
+    private LessonSessionResponse toResponse(LessonSession session) {
+        int correct = 0;
+        int xpEarned = 0;
+        int heartsUsed = 0;
+        for (LessonSession.Answer answer : session.answers.values()) {
+            correct += answer.correct() ? 1 : 0;
+            xpEarned += answer.xpEarned();
+            heartsUsed += answer.heartsUsed();
+        }
+
+        return LessonSessionResponse.builder()
+                .sessionId(session.id)
+                .lessonId(session.lessonId)
+                .pendingExerciseIds(session.pendingExerciseIds())
+                .answeredExercises(session.answers.size())
+                .correctExercises(correct)
+                .xpEarned(xpEarned)
+                .heartsUsed(heartsUsed)
+                .heartsRemaining(session.heartsRemaining)
+                .build();
+    }
+}
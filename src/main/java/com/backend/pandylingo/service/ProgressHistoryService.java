@@ -0,0 +1,105 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.dto.progress.ProgressHistoryPage;
+import com.backend.pandylingo.dto.progress.UserProgressResponse;
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.repository.UserProgressRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Reads a user's progress history newest first, as keyset-paginated pages or as one NDJSON
+ * stream. Rows are projected straight into {@link UserProgressResponse} with the exercise
+ * joined in, so no entities are loaded. Records still in the write-behind buffer show up
+ * once they are written.
+ */
+@Service
+public class ProgressHistoryService {
+    private static final int STREAM_FLUSH_ROWS = 100;
+
+    private final UserProgressRepository progressRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+
+    public ProgressHistoryService(
+            UserProgressRepository progressRepository,
+            ObjectMapper objectMapper,
+            @Value("${progress.history.max-page-size:100}") int maxPageSize
+    ) {
+        this.progressRepository = progressRepository;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Transactional(readOnly = true)
+    public ProgressHistoryPage getPage(UUID userId, UUID lessonId, LocalDateTime from, LocalDateTime to,
+                                       String cursor, int limit) {
+        int count = Math.clamp(limit, 1, maxPageSize);
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+
+        // One extra row tells whether there is a next page
+        List<UserProgressResponse> rows = progressRepository.findHistory(userId, lessonId, from, to,
+                after == null ? null : after.completedAt(), after == null ? null : after.id(),
+                Pageable.ofSize(count + 1));
+
+        String nextCursor = null;
+        if (rows.size() > count) {
+            rows = rows.subList(0, count);
+            UserProgressResponse last = rows.getLast();
+            nextCursor = new Cursor(last.getCompletedAt(), last.getId()).encode();
+        }
+        return ProgressHistoryPage.builder().entries(rows).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * Writes the whole filtered history as newline-delimited JSON while the rows are read
+     * from a database cursor. The output stream is flushed every few rows and left open.
+     */
+    @Transactional(readOnly = true)
+    public void stream(UUID userId, UUID lessonId, LocalDateTime from, LocalDateTime to, OutputStream out)
+            throws IOException {
+        try (Stream<UserProgressResponse> rows = progressRepository.streamHistory(userId, lessonId, from, to)) {
+            int written = 0;
+            for (Iterator<UserProgressResponse> it = rows.iterator(); it.hasNext(); ) {
+                // writeValueAsBytes rather than writeValue, which would close the response stream
+                out.write(objectMapper.writeValueAsBytes(it.next()));
+                out.write('\n');
+                if (++written % STREAM_FLUSH_ROWS == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        }
+    }
+
+    record Cursor(LocalDateTime completedAt, UUID id) {
+        String encode() {
+            String raw = completedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String encoded) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+                throw new BadRequestException("Invalid progress history cursor");
+            }
+        }
+    }
+}
@@ -1,24 +1,31 @@
 package com.backend.pandylingo.service;
 
+import com.backend.pandylingo.dto.progress.CourseProgress;
 import com.backend.pandylingo.dto.progress.LessonProgress;
+import com.backend.pandylingo.model.Difficulty;
 import com.backend.pandylingo.model.Exercise;
+import com.backend.pandylingo.model.Language;
 import com.backend.pandylingo.model.User;
 import com.backend.pandylingo.model.UserProfile;
 import com.backend.pandylingo.model.UserProgress;
+import com.backend.pandylingo.exception.ConflictException;
+import com.backend.pandylingo.exception.NotFoundException;
 import com.backend.pandylingo.repository.ExerciseRepository;
+import com.backend.pandylingo.repository.LessonProgressSummaryRepository;
 import com.backend.pandylingo.repository.UserProfileRepository;
 import com.backend.pandylingo.repository.UserProgressRepository;
 import com.backend.pandylingo.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -26,101 +33,296 @@ public class ProgressService {
     private final UserProgressRepository progressRepository;
     private final UserProfileRepository userProfileRepository;
     private final ExerciseRepository exerciseRepository;
-    private final LessonService lessonService;
+    private final LessonProgressSummaryRepository lessonProgressSummaryRepository;
+    private final CourseProgressCache courseProgressCache;
+    private final LeaderboardService leaderboardService;
+    private final ProgressWriteBuffer progressWriteBuffer;
+    private final AnswerGrader answerGrader;
+    private final HeartService heartService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional
     public UserProgress submitExercise(UUID userId, UUID exerciseId, String answer) {
-        UserProfile userProfile = userProfileRepository.findById(userId)
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         Exercise exercise = exerciseRepository.findById(exerciseId)
                 .orElseThrow(() -> new EntityNotFoundException("Exercise not found"));
 
-        // Check if user has already completed this exercise
-        Optional<UserProgress> existingProgress =
-                progressRepository.findByUserIdAndExerciseId(userId, exerciseId);
+        // Validate answer
+        AnswerGrader.Grade grade = answerGrader.grade(exercise, answer);
+        boolean isCorrect = grade.correct();
+        int heartsUsed = grade.heartsUsed();
+        LocalDateTime now = LocalDateTime.now();
+        ProgressWriteBuffer.PendingProgress pending = new ProgressWriteBuffer.PendingProgress(
+                UUID.randomUUID(), userId, userProfile.getId(), exercise.getId(), exercise.getLesson().getId(),
+                grade.outcome(), answer, now, grade.xpEarned(), heartsUsed);
 
-        if (existingProgress.isPresent() && existingProgress.get().isCompleted()) {
-            throw new IllegalStateException("Exercise already completed");
+        // Claim the exercise before anything is awarded, so that of two concurrent submissions
+        // only one gets past here and the other finds the exercise completed
+        if (!progressWriteBuffer.reserve(userId, exerciseId)) {
+            throw new ConflictException("Exercise already completed");
+        }
+        // New records can be handed to the write-behind buffer; it says no when full
+        boolean buffered = progressWriteBuffer.isEnabled()
+                && !progressRepository.existsByUserIdAndExerciseId(userProfile.getId(), exerciseId)
+                && progressWriteBuffer.offer(pending);
+        if (!buffered && progressRepository.insertCompleted(pending.id(), userProfile.getId(), exerciseId,
+                isCorrect, grade.outcome().name(), now, answer, grade.xpEarned(), heartsUsed) == 0) {
+            throw new ConflictException("Exercise already completed");
         }
 
-        // Validate answer
-        boolean isCorrect = exercise.validateAnswer(answer);
-        int heartsUsed = exercise.getHeartsCost();
+        // An attempt needs the full cost even if an almost correct answer ends up spending none
+        if (heartService.effectiveHearts(userProfile, now) < exercise.getHeartsCost()) {
+            throw new NotEnoughHeartsException("Not enough hearts to attempt this exercise");
+        }
 
-        // Check if user has enough hearts
-        if (userProfile.getHearts() < heartsUsed) {
+        // Check and spend hearts in one statement; the loaded values may already be stale
+        heartService.settle(userProfile, now);
+        if (userProfileRepository.spendHeartsAndAddXp(userProfile.getId(), heartsUsed, grade.xpEarned(),
+                heartService.getMaxHearts(), now) == 0) {
             throw new NotEnoughHeartsException("Not enough hearts to attempt this exercise");
         }
 
-        // Update user stats
-        userProfile.setXpPoints(userProfile.getXpPoints() + exercise.getXpReward());
-        userProfile.setHearts(userProfile.getHearts() - heartsUsed);
+        lessonProgressSummaryRepository.increment(userId, exercise.getLesson().getId(), 1, isCorrect ? 1 : 0,
+                grade.xpEarned());
+        courseProgressCache.invalidate(userId);
 
-        // Update streak
-        LocalDateTime now = LocalDateTime.now();
         LocalDate today = now.toLocalDate();
-        LocalDate lastStreakUpdate = userProfile.getLastStreakUpdate().toLocalDate();
-
-        // If this is the first exercise completed today, update streak
-        if (!lastStreakUpdate.equals(today)) {
-            // If last practice was yesterday, increment streak
-            if (lastStreakUpdate.equals(today.minusDays(1))) {
-                userProfile.setStreak(userProfile.getStreak() + 1);
-            } 
-            // If last practice was more than a day ago but user has streak freeze
-            else if (userProfile.getStreakFreezeCount() > 0) {
-                userProfile.setStreakFreezeCount(userProfile.getStreakFreezeCount() - 1);
-            } 
-            // If last practice was more than a day ago and no streak freeze, reset streak to 1
-            else {
-                userProfile.setStreak(1);
+        updateStreak(userProfile, now);
+
+        // The bulk updates bypass the persistence context, so re-read the row they produced
+        entityManager.refresh(userProfile);
+        leaderboardService.update(userProfile);
+        leaderboardService.recordXp(userId, grade.xpEarned(), today);
+
+        if (buffered) {
+            return toProgress(pending, userProfile, exercise);
+        }
+        // Written by a native statement, so load it rather than build it
+        return progressRepository.findByUserIdAndExerciseId(userProfile.getId(), exerciseId).orElseThrow();
+    }
+
+    /**
+     * Writes the answers collected by a lesson session in one transaction: a single
+     * conditional profile update for the summed hearts and xp, then all progress rows.
+     * Answers for exercises completed elsewhere since the session started are dropped, and so
+     * are answers whose hearts were spent elsewhere meanwhile. Only the returned rows were saved.
+     */
+    @Transactional
+    List<UserProgress> saveLessonAnswers(UUID userId, UUID lessonId, Collection<LessonSession.Answer> answers) {
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+
+        Map<UUID, UserProgress> existingProgress = new HashMap<>();
+        for (UserProgress progress : progressRepository.findByUserIdAndLessonId(userProfile.getId(), lessonId)) {
+            existingProgress.put(progress.getExercise().getId(), progress);
+        }
+
+        // The session checked its answers against the hearts it started with; whatever was spent
+        // elsewhere since is taken first, so answers that no longer fit are dropped in answer order
+        LocalDateTime now = LocalDateTime.now();
+        int heartsAvailable = heartService.effectiveHearts(userProfile, now);
+        List<LessonSession.Answer> toSave = new ArrayList<>(answers.size());
+        for (LessonSession.Answer answer : answers) {
+            UserProgress existing = existingProgress.get(answer.exerciseId());
+            if ((existing == null || !existing.isCompleted()) && answer.heartsUsed() <= heartsAvailable
+                    && progressWriteBuffer.reserve(userId, answer.exerciseId())) {
+                toSave.add(answer);
+                heartsAvailable -= answer.heartsUsed();
             }
+        }
+        if (toSave.isEmpty()) {
+            return List.of();
+        }
 
-            userProfile.setLastStreakUpdate(now);
+        int heartsUsed = toSave.stream().mapToInt(LessonSession.Answer::heartsUsed).sum();
+        int xpEarned = toSave.stream().mapToInt(LessonSession.Answer::xpEarned).sum();
+        heartService.settle(userProfile, now);
+        if (userProfileRepository.spendHeartsAndAddXp(userProfile.getId(), heartsUsed, xpEarned,
+                heartService.getMaxHearts(), now) == 0) {
+            throw new NotEnoughHeartsException("Not enough hearts to attempt this exercise");
         }
 
-        userProfileRepository.save(userProfile);
+        int correct = (int) toSave.stream().filter(LessonSession.Answer::correct).count();
+        lessonProgressSummaryRepository.increment(userId, lessonId, toSave.size(), correct, xpEarned);
+        courseProgressCache.invalidate(userId);
 
-        // Create or update progress record
-        UserProgress progress = existingProgress.orElseGet(() ->
-                UserProgress.builder()
+        updateStreak(userProfile, now);
+        entityManager.refresh(userProfile);
+        leaderboardService.update(userProfile);
+
+        List<UserProgress> rows = new ArrayList<>(toSave.size());
+        for (LessonSession.Answer answer : toSave) {
+            UserProgress progress = existingProgress.get(answer.exerciseId());
+            if (progress == null) {
+                progress = UserProgress.builder()
                         .user(userProfile)
-                        .exercise(exercise)
-                        .build()
-        );
-
-        progress.setCompleted(true);
-        progress.setCorrect(isCorrect);
-        progress.setCompletedAt(LocalDateTime.now());
-        progress.setUserAnswer(answer);
-        progress.setXpEarned(exercise.getXpReward());
-        progress.setHeartsUsed(heartsUsed);
-
-        return progressRepository.save(progress);
+                        // Reference only: the exercise itself was loaded when the session started
+                        .exercise(exerciseRepository.getReferenceById(answer.exerciseId()))
+                        .build();
+            }
+
+            progress.setCompleted(true);
+            progress.setCorrect(answer.correct());
+            progress.setOutcome(answer.outcome());
+            progress.setCompletedAt(answer.answeredAt());
+            progress.setUserAnswer(answer.userAnswer());
+            progress.setXpEarned(answer.xpEarned());
+            progress.setHeartsUsed(answer.heartsUsed());
+            rows.add(progress);
+        }
+
+        List<UserProgress> saved;
+        try {
+            saved = progressRepository.saveAllAndFlush(rows);
+        } catch (DataIntegrityViolationException ex) {
+            // Another submission completed one of the exercises since they were read above
+            throw new ConflictException("Exercise already completed");
+        }
+        leaderboardService.recordXp(userId, xpEarned, now.toLocalDate());
+        return saved;
     }
 
+    // Includes records still waiting in the write-behind buffer
+    @Transactional(readOnly = true)
     public List<UserProgress> getUserProgress(UUID userId) {
-        return progressRepository.findByUserId(userId);
+        List<UserProgress> progress = new ArrayList<>(progressRepository.findAllByUserIdWithExercise(userId));
+
+        List<ProgressWriteBuffer.PendingProgress> pending = unwrittenProgress(userId);
+        if (!pending.isEmpty()) {
+            Map<UUID, Exercise> exercises = new HashMap<>();
+            exerciseRepository.findAllById(pending.stream().map(ProgressWriteBuffer.PendingProgress::exerciseId).toList())
+                    .forEach(exercise -> exercises.put(exercise.getId(), exercise));
+            for (ProgressWriteBuffer.PendingProgress entry : pending) {
+                Exercise exercise = exercises.get(entry.exerciseId());
+                // Deleted since it was answered; the buffered row will not be written either
+                if (exercise == null) {
+                    continue;
+                }
+                progress.add(toProgress(entry, userProfileRepository.getReferenceById(entry.profileId()), exercise));
+            }
+        }
+        return progress;
     }
 
+    // One keyed read: the summary is updated in every transaction that completes an exercise,
+    // including submissions whose progress row is still in the write-behind buffer
     public LessonProgress getLessonProgress(UUID userId, UUID lessonId) {
-        int completed = progressRepository.countCompletedExercisesByUserAndLesson(userId, lessonId);
-        int correct = progressRepository.countCorrectExercisesByUserAndLesson(userId, lessonId);
-        int totalExercises = lessonService.countExercisesInLesson(lessonId);
+        return toLessonProgress(lessonProgressSummaryRepository.findLessonProgress(userId, lessonId)
+                .orElseThrow(() -> new NotFoundException("Lesson not found")));
+    }
+
+    // Rollup of every lesson in a language and difficulty, from one grouped read of the summaries
+    public CourseProgress getCourseProgress(UUID userId, Language language, Difficulty difficulty) {
+        CourseProgress cached = courseProgressCache.get(userId, language, difficulty);
+        if (cached != null) {
+            return cached;
+        }
+        long readAt = courseProgressCache.generation();
+
+        List<LessonProgress> lessons = lessonProgressSummaryRepository
+                .findCourseProgress(userId, language.name(), difficulty.name()).stream()
+                .map(this::toLessonProgress)
+                .toList();
+
+        int completedLessons = 0;
+        int completedExercises = 0;
+        int totalExercises = 0;
+        int xpEarned = 0;
+        for (LessonProgress lesson : lessons) {
+            if (lesson.getTotalExercises() > 0 && lesson.getCompletedExercises() >= lesson.getTotalExercises()) {
+                completedLessons++;
+            }
+            completedExercises += lesson.getCompletedExercises();
+            totalExercises += lesson.getTotalExercises();
+            xpEarned += lesson.getXpEarned();
+        }
+
+        CourseProgress progress = CourseProgress.builder()
+                .completedLessons(completedLessons)
+                .totalLessons(lessons.size())
+                .completedExercises(completedExercises)
+                .totalExercises(totalExercises)
+                .completionPercentage(totalExercises > 0 ? (completedExercises * 100.0) / totalExercises : 0)
+                .xpEarned(xpEarned)
+                .lessons(lessons)
+                .build();
+        courseProgressCache.put(userId, language, difficulty, progress, readAt);
+        return progress;
+    }
+
+    private LessonProgress toLessonProgress(LessonProgressSummaryRepository.LessonProgressCounts counts) {
+        int completed = counts.getCompleted();
+        int correct = counts.getCorrect();
+        int totalExercises = counts.getTotalExercises();
 
         int percentComplete = totalExercises > 0 ? (completed * 100) / totalExercises : 0;
         int percentCorrect = completed > 0 ? (correct * 100) / completed : 0;
 
         return LessonProgress.builder()
-                .lessonId(lessonId)
+                .lessonId(counts.getLessonId())
                 .completedExercises(completed)
                 .correctExercises(correct)
                 .totalExercises(totalExercises)
                 .percentComplete(percentComplete)
                 .percentCorrect(percentCorrect)
+                .xpEarned(counts.getXpEarned())
                 .build();
     }
 
+    // Buffered records, minus any whose batch was written after the caller's query ran
+    private List<ProgressWriteBuffer.PendingProgress> unwrittenProgress(UUID userId) {
+        List<ProgressWriteBuffer.PendingProgress> pending = List.copyOf(progressWriteBuffer.pendingFor(userId));
+        if (pending.isEmpty()) {
+            return pending;
+        }
+
+        Set<UUID> written = new HashSet<>(progressRepository.findExistingIds(
+                pending.stream().map(ProgressWriteBuffer.PendingProgress::id).toList()));
+        return pending.stream().filter(entry -> !written.contains(entry.id())).toList();
+    }
+
+    private static UserProgress toProgress(ProgressWriteBuffer.PendingProgress pending, UserProfile userProfile,
+                                           Exercise exercise) {
+        return UserProgress.builder()
+                .id(pending.id())
+                .user(userProfile)
+                .exercise(exercise)
+                .completed(true)
+                .correct(pending.correct())
+                .outcome(pending.outcome())
+                .completedAt(pending.completedAt())
+                .userAnswer(pending.userAnswer())
+                .xpEarned(pending.xpEarned())
+                .heartsUsed(pending.heartsUsed())
+                .build();
+    }
+
+    // If this is the first exercise completed today, update streak.
+    // A result of 0 means a concurrent submission already did it.
+    private void updateStreak(UserProfile userProfile, LocalDateTime now) {
+        // Days follow the user's time zone
+        LocalDate today = userProfile.localDate(now);
+        LocalDateTime previousStreakUpdate = userProfile.getLastStreakUpdate();
+        LocalDate lastStreakUpdate = userProfile.localDate(previousStreakUpdate);
+
+        if (lastStreakUpdate.equals(today)) {
+            return;
+        }
+
+        // If last practice was yesterday, increment streak
+        if (lastStreakUpdate.equals(today.minusDays(1))) {
+            userProfileRepository.extendStreak(userProfile.getId(), previousStreakUpdate, now);
+        }
+        // If last practice was more than a day ago, use a streak freeze if there is one,
+        // otherwise reset streak to 1
+        else if (userProfileRepository.keepStreakWithFreeze(userProfile.getId(), previousStreakUpdate, now) == 0) {
+            userProfileRepository.restartStreak(userProfile.getId(), previousStreakUpdate, now);
+        }
+    }
+
     // Custom exception
     public static class NotEnoughHeartsException extends RuntimeException {
         public NotEnoughHeartsException(String message) {
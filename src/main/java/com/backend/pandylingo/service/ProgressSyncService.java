@@ -0,0 +1,281 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.dto.progress.ProgressSyncRequest;
+import com.backend.pandylingo.dto.progress.ProgressSyncResponse;
+import com.backend.pandylingo.dto.progress.ProgressSyncResponse.ItemResult;
+import com.backend.pandylingo.dto.progress.ProgressSyncResponse.Status;
+import com.backend.pandylingo.exception.BadRequestException;
+import com.backend.pandylingo.exception.ConflictException;
+import com.backend.pandylingo.exception.NotFoundException;
+import com.backend.pandylingo.model.Exercise;
+import com.backend.pandylingo.model.UserProfile;
+import com.backend.pandylingo.model.UserProgress;
+import com.backend.pandylingo.repository.ExerciseRepository;
+import com.backend.pandylingo.repository.LessonProgressSummaryRepository;
+import com.backend.pandylingo.repository.UserProfileRepository;
+import com.backend.pandylingo.repository.UserProgressRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Ingests answers recorded offline. A batch is validated against exercises, prior progress
+ * and prior attempts loaded with one IN query each, replayed in answer order to settle
+ * hearts, xp and streak, and written with one profile update and a batched insert.
+ * Attempt ids make retries of the same batch harmless.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProgressSyncService {
+    private final UserProgressRepository progressRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final ExerciseRepository exerciseRepository;
+    private final LeaderboardService leaderboardService;
+    private final ProgressWriteBuffer progressWriteBuffer;
+    private final LessonProgressSummaryRepository lessonProgressSummaryRepository;
+    private final CourseProgressCache courseProgressCache;
+    private final AnswerGrader answerGrader;
+    private final HeartService heartService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${progress.sync.max-batch-size:200}")
+    private int maxBatchSize;
+
+    // Answers older than this are refused, so backdated answers cannot rebuild lapsed streaks
+    // or fill buckets of periods that have long ended
+    @Value("${progress.sync.max-offline-hours:72}")
+    private long maxOfflineHours;
+
+    @Transactional
+    public ProgressSyncResponse sync(UUID userId, ProgressSyncRequest request) {
+        List<ProgressSyncRequest.Item> items = request.getAnswers() == null ? List.of() : request.getAnswers();
+        if (items.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " answers can be synced at once");
+        }
+
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldestAccepted = now.minusHours(maxOfflineHours);
+
+        // Bulk lookups: one query each, whatever the batch size
+        Set<UUID> exerciseIds = new HashSet<>();
+        Set<UUID> attemptIds = new HashSet<>();
+        for (ProgressSyncRequest.Item item : items) {
+            if (item.getExerciseId() != null) {
+                exerciseIds.add(item.getExerciseId());
+            }
+            if (item.getAttemptId() != null) {
+                attemptIds.add(item.getAttemptId());
+            }
+        }
+
+        Map<UUID, Exercise> exercises = new HashMap<>();
+        for (Exercise exercise : exerciseRepository.findAllById(exerciseIds)) {
+            exercises.put(exercise.getId(), exercise);
+        }
+        Map<UUID, UserProgress> existingProgress = new HashMap<>();
+        for (UserProgress progress : progressRepository.findByUserIdAndExerciseIdIn(userProfile.getId(), exerciseIds)) {
+            existingProgress.put(progress.getExercise().getId(), progress);
+        }
+        Map<UUID, UserProgress> previousAttempts = new HashMap<>();
+        if (!attemptIds.isEmpty()) {
+            for (UserProgress progress : progressRepository.findByAttemptIdIn(attemptIds)) {
+                if (progress.getUser().getId().equals(userProfile.getId())) {
+                    previousAttempts.put(progress.getAttemptId(), progress);
+                }
+            }
+        }
+
+        // Replay in the order the answers were given; missing or future timestamps count as now
+        List<ProgressSyncRequest.Item> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparing(item -> answeredAt(item, now)));
+
+        Map<ProgressSyncRequest.Item, ItemResult> resultsByItem = new IdentityHashMap<>();
+        Set<UUID> seenAttempts = new HashSet<>();
+        List<UserProgress> rows = new ArrayList<>();
+        Map<LocalDate, Integer> xpByDay = new TreeMap<>();
+        // Completed count, correct count and xp per lesson, for lesson_progress_summary
+        Map<UUID, int[]> countsByLesson = new HashMap<>();
+        StreakReplay streak = new StreakReplay(userProfile);
+        int heartsRemaining = heartService.effectiveHearts(userProfile, now);
+        int xpEarned = 0;
+        int heartsUsed = 0;
+
+        for (ProgressSyncRequest.Item item : ordered) {
+            ItemResult.ItemResultBuilder result = ItemResult.builder()
+                    .attemptId(item.getAttemptId())
+                    .exerciseId(item.getExerciseId());
+
+            if (item.getAttemptId() == null || item.getExerciseId() == null || item.getAnswer() == null) {
+                resultsByItem.put(item, result.status(Status.INVALID).build());
+                continue;
+            }
+
+            UserProgress previous = previousAttempts.get(item.getAttemptId());
+            if (previous != null || !seenAttempts.add(item.getAttemptId())) {
+                if (previous != null) {
+                    result.correct(previous.isCorrect())
+                            .outcome(previous.getOutcome())
+                            .xpEarned(previous.getXpEarned())
+                            .heartsUsed(previous.getHeartsUsed());
+                }
+                resultsByItem.put(item, result.status(Status.DUPLICATE).build());
+                continue;
+            }
+
+            if (item.getAnsweredAt() != null && item.getAnsweredAt().isBefore(oldestAccepted)) {
+                resultsByItem.put(item, result.status(Status.EXPIRED).build());
+                continue;
+            }
+
+            Exercise exercise = exercises.get(item.getExerciseId());
+            if (exercise == null) {
+                resultsByItem.put(item, result.status(Status.UNKNOWN_EXERCISE).build());
+                continue;
+            }
+
+            UserProgress existing = existingProgress.get(exercise.getId());
+            if ((existing != null && existing.isCompleted()) || !progressWriteBuffer.reserve(userId, exercise.getId())) {
+                resultsByItem.put(item, result.status(Status.ALREADY_COMPLETED).build());
+                continue;
+            }
+
+            int cost = exercise.getHeartsCost();
+            if (heartsRemaining < cost) {
+                resultsByItem.put(item, result.status(Status.NOT_ENOUGH_HEARTS).build());
+                continue;
+            }
+
+            AnswerGrader.Grade grade = answerGrader.grade(exercise, item.getAnswer());
+            boolean isCorrect = grade.correct();
+            LocalDateTime answeredAt = answeredAt(item, now);
+            heartsRemaining -= grade.heartsUsed();
+            heartsUsed += grade.heartsUsed();
+            xpEarned += grade.xpEarned();
+            xpByDay.merge(answeredAt.toLocalDate(), grade.xpEarned(), Integer::sum);
+            streak.practiced(answeredAt);
+            int[] counts = countsByLesson.computeIfAbsent(exercise.getLesson().getId(), _ -> new int[3]);
+            counts[0]++;
+            counts[1] += isCorrect ? 1 : 0;
+            counts[2] += grade.xpEarned();
+
+            UserProgress progress = existing != null ? existing : UserProgress.builder()
+                    .user(userProfile)
+                    .exercise(exercise)
+                    .build();
+            progress.setCompleted(true);
+            progress.setCorrect(isCorrect);
+            progress.setOutcome(grade.outcome());
+            progress.setCompletedAt(answeredAt);
+            progress.setUserAnswer(item.getAnswer());
+            progress.setXpEarned(grade.xpEarned());
+            progress.setHeartsUsed(grade.heartsUsed());
+            progress.setAttemptId(item.getAttemptId());
+            rows.add(progress);
+            // Later answers to the same exercise in this batch are already completed
+            existingProgress.put(exercise.getId(), progress);
+
+            resultsByItem.put(item, result.status(Status.APPLIED)
+                    .correct(isCorrect)
+                    .outcome(grade.outcome())
+                    .xpEarned(grade.xpEarned())
+                    .heartsUsed(grade.heartsUsed())
+                    .build());
+        }
+
+        if (!rows.isEmpty()) {
+            // The replay used the hearts loaded above; if another request spent some since,
+            // fail the batch so the client retries it (attempt ids keep the retry safe)
+            heartService.settle(userProfile, now);
+            if (userProfileRepository.spendHeartsAndAddXp(userProfile.getId(), heartsUsed, xpEarned,
+                    heartService.getMaxHearts(), now) == 0) {
+                throw new ConflictException("Hearts changed during sync, please retry");
+            }
+            streak.apply();
+            countsByLesson.forEach((lessonId, counts) ->
+                    lessonProgressSummaryRepository.increment(userId, lessonId, counts[0], counts[1], counts[2]));
+            courseProgressCache.invalidate(userId);
+            entityManager.refresh(userProfile);
+            leaderboardService.update(userProfile);
+
+            // Inserted in JDBC batches, see hibernate.jdbc.batch_size
+            try {
+                progressRepository.saveAllAndFlush(rows);
+            } catch (DataIntegrityViolationException ex) {
+                // Another request completed one of the exercises since they were read above
+                throw new ConflictException("Progress changed during sync, please retry");
+            }
+            xpByDay.forEach((day, xp) -> leaderboardService.recordXp(userId, xp, day));
+        }
+
+        // Report in request order
+        List<ItemResult> response = new ArrayList<>(items.size());
+        for (ProgressSyncRequest.Item item : items) {
+            response.add(resultsByItem.get(item));
+        }
+        return ProgressSyncResponse.builder()
+                .results(response)
+                .xpEarned(xpEarned)
+                .heartsUsed(heartsUsed)
+                .build();
+    }
+
+    private static LocalDateTime answeredAt(ProgressSyncRequest.Item item, LocalDateTime now) {
+        LocalDateTime answeredAt = item.getAnsweredAt();
+        return answeredAt == null || answeredAt.isAfter(now) ? now : answeredAt;
+    }
+
+    // Applies the same per-day rule as a live submission to each practice day in order
+    private class StreakReplay {
+        private final UserProfile userProfile;
+        private final LocalDateTime previousUpdate;
+        private LocalDateTime lastUpdate;
+        private int streak;
+        private int freezesLeft;
+        private int freezesUsed;
+
+        StreakReplay(UserProfile userProfile) {
+            this.userProfile = userProfile;
+            this.previousUpdate = userProfile.getLastStreakUpdate();
+            this.lastUpdate = previousUpdate;
+            this.streak = userProfile.getStreak();
+            this.freezesLeft = userProfile.getStreakFreezeCount();
+        }
+
+        void practiced(LocalDateTime at) {
+            LocalDate day = userProfile.localDate(at);
+            LocalDate lastDay = userProfile.localDate(lastUpdate);
+            if (!day.isAfter(lastDay)) {
+                return;
+            }
+
+            if (day.equals(lastDay.plusDays(1))) {
+                streak++;
+            } else if (freezesLeft > 0) {
+                freezesLeft--;
+                freezesUsed++;
+            } else {
+                streak = 1;
+            }
+            lastUpdate = at;
+        }
+
+        // A result of 0 means a concurrent submission moved the streak first; it wins
+        void apply() {
+            if (!lastUpdate.equals(previousUpdate)) {
+                userProfileRepository.replayStreak(userProfile.getId(), previousUpdate, streak, freezesUsed, lastUpdate);
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.model.AnswerOutcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Optional write-behind buffer for new {@code user_progress} rows. A submission reserves its
+ * answer and a slot inside its transaction; once that transaction commits the record is queued,
+ * and a background flusher inserts queued records in JDBC batches when a batch fills up or the
+ * flush interval passes. When no slot is free the caller writes synchronously instead.
+ * <p>
+ * Records stay visible through {@link #pendingFor(UUID)} until their batch is written,
+ * and the buffer is drained on shutdown.
+ * <p>
+ * Other nodes cannot see this node's reservations or queue, so while the buffer is enabled a
+ * reservation also claims the answer in {@code progress_claims}, inside the submitting
+ * transaction. A second submission on any node then waits for that claim and is refused.
+ * The claim is deleted in the same transaction as the row that replaces it: before commit
+ * when the row is written synchronously, or with the flushed batch. A record the database
+ * rejects, or one lost with a crashed node, keeps its claim, so its xp is never awarded twice.
+ */
+@Component
+public class ProgressWriteBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressWriteBuffer.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO user_progress (id, user_id, exercise_id, completed, correct, outcome, completed_at, " +
+            "user_answer, xp_earned, hearts_used) VALUES (?, ?, ?, true, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO progress_claims (user_id, exercise_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String RELEASE_CLAIM_SQL =
+            "DELETE FROM progress_claims WHERE user_id = ? AND exercise_id = ?";
+
+    private static final int SHUTDOWN_WRITE_ATTEMPTS = 3;
+
+    public record PendingProgress(UUID id, UUID userId, UUID profileId, UUID exerciseId, UUID lessonId,
+                                  AnswerOutcome outcome, String userAnswer, LocalDateTime completedAt,
+                                  int xpEarned, int heartsUsed) {
+        public boolean correct() {
+            return outcome != AnswerOutcome.INCORRECT;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private record AnswerKey(UUID userId, UUID exerciseId) {}
+
+    // An answer claimed by a transaction that has not completed yet, with the record it queues on commit
+    private static final class Reservation {
+        private PendingProgress progress;
+    }
+
+    private final Semaphore slots;
+    private final BlockingQueue<PendingProgress> queue = new LinkedBlockingQueue<>();
+    private final Map<AnswerKey, Reservation> reservations = new ConcurrentHashMap<>();
+    // Committed but not yet written, per user id then exercise id
+    private final Map<UUID, Map<UUID, PendingProgress>> pendingByUser = new ConcurrentHashMap<>();
+
+    private final Counter flushed;
+    private final Counter fallbacks;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ProgressWriteBuffer(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${progress.write-behind.enabled:false}") boolean enabled,
+            @Value("${progress.write-behind.capacity:10000}") int capacity,
+            @Value("${progress.write-behind.batch-size:200}") int batchSize,
+            @Value("${progress.write-behind.flush-interval-ms:200}") long flushIntervalMillis
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.slots = new Semaphore(capacity);
+
+        this.flushed = Counter.builder("progress.write_buffer.flushed").register(meterRegistry);
+        this.fallbacks = Counter.builder("progress.write_buffer.fallbacks").register(meterRegistry);
+        this.dropped = Counter.builder("progress.write_buffer.dropped").register(meterRegistry);
+        Gauge.builder("progress.write_buffer.size", queue, Collection::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "progress-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.join();
+
+        // Transactions that reserved a slot before the flusher stopped may commit just after it
+        List<PendingProgress> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+        logger.info("Progress write buffer drained");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Claims the user's answer to an exercise until the surrounding transaction completes, so
+     * that two concurrent submissions of it, on this node or another, cannot both be
+     * acknowledged. Held even when the record ends up written synchronously. Must be called
+     * inside that transaction.
+     * @return false if the answer is already claimed or waiting to be written
+     */
+    public boolean reserve(UUID userId, UUID exerciseId) {
+        if (!running) {
+            return true;
+        }
+
+        AnswerKey key = new AnswerKey(userId, exerciseId);
+        Reservation reservation = new Reservation();
+        if (reservations.putIfAbsent(key, reservation) != null) {
+            return false;
+        }
+        // Checked after claiming: a committed record is queued before its reservation is let go
+        if (isQueued(userId, exerciseId)) {
+            reservations.remove(key, reservation);
+            return false;
+        }
+        // Waits while another node's transaction holds the claim, and finds it taken if that one commits
+        if (jdbcTemplate.update(CLAIM_SQL, userId, exerciseId) == 0) {
+            reservations.remove(key, reservation);
+            return false;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Written synchronously, or not at all: the row, if any, now guards the answer
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (reservation.progress == null) {
+                    jdbcTemplate.update(RELEASE_CLAIM_SQL, userId, exerciseId);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (reservation.progress != null) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(reservation.progress);
+                    } else {
+                        slots.release();
+                    }
+                }
+                reservations.remove(key, reservation);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Takes a slot for a record whose answer this transaction reserved, and queues the record
+     * once the transaction commits.
+     * @return false if the buffer is disabled or full; the caller must write the row itself
+     */
+    public boolean offer(PendingProgress progress) {
+        if (!running) {
+            return false;
+        }
+        Reservation reservation = reservations.get(new AnswerKey(progress.userId(), progress.exerciseId()));
+        if (reservation == null) {
+            throw new IllegalStateException("Progress offered without reserving its answer first");
+        }
+        if (!slots.tryAcquire()) {
+            fallbacks.increment();
+            return false;
+        }
+        reservation.progress = progress;
+        return true;
+    }
+
+    private boolean isQueued(UUID userId, UUID exerciseId) {
+        Map<UUID, PendingProgress> pending = pendingByUser.get(userId);
+        return pending != null && pending.containsKey(exerciseId);
+    }
+
+    public Collection<PendingProgress> pendingFor(UUID userId) {
+        Map<UUID, PendingProgress> pending = pendingByUser.get(userId);
+        return pending == null ? List.of() : List.copyOf(pending.values());
+    }
+
+    private void enqueue(PendingProgress progress) {
+        pendingByUser.computeIfAbsent(progress.userId(), _ -> new ConcurrentHashMap<>())
+                .put(progress.exerciseId(), progress);
+        queue.add(progress);
+    }
+
+    private void runFlusher() {
+        List<PendingProgress> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingProgress first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                // Fill the batch until it is full or the flush interval has passed
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingProgress next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Transient failures are retried with backoff; records the database rejects are dropped
+    private void write(List<PendingProgress> batch) throws InterruptedException {
+        List<PendingProgress> unwritten = batch;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    insert(unwritten);
+                    flushed.increment(unwritten.size());
+                    break;
+                } catch (DataAccessException ex) {
+                    if (isPermanent(ex)) {
+                        // One rejected record fails its whole batch, so find it by writing them one at a time
+                        unwritten = writeSeparately(unwritten);
+                        if (unwritten.isEmpty()) {
+                            break;
+                        }
+                    }
+                    if (!running && attempt >= SHUTDOWN_WRITE_ATTEMPTS) {
+                        drop(unwritten, "after " + attempt + " failed writes", ex);
+                        break;
+                    }
+                    long backoff = Math.min(5000L, 100L << Math.min(attempt, 6));
+                    logger.warn("Failed to write {} buffered progress records, retrying in {} ms",
+                            unwritten.size(), backoff, ex);
+                    Thread.sleep(backoff);
+                }
+            }
+        } finally {
+            for (PendingProgress progress : batch) {
+                pendingByUser.computeIfPresent(progress.userId(), (_, pending) -> {
+                    pending.remove(progress.exerciseId(), progress);
+                    return pending.isEmpty() ? null : pending;
+                });
+            }
+            slots.release(batch.size());
+        }
+    }
+
+    // Returns the records that failed for a reason worth retrying
+    private List<PendingProgress> writeSeparately(List<PendingProgress> batch) {
+        List<PendingProgress> retry = new ArrayList<>();
+        for (PendingProgress progress : batch) {
+            try {
+                insert(List.of(progress));
+                flushed.increment();
+            } catch (DataAccessException ex) {
+                if (isPermanent(ex)) {
+                    drop(List.of(progress), "rejected by the database", ex);
+                } else {
+                    retry.add(progress);
+                }
+            }
+        }
+        return retry;
+    }
+
+    // Constraint violations, bad data and the like fail the same way every time; a lost
+    // connection or an unavailable database does not
+    private static boolean isPermanent(DataAccessException ex) {
+        return ex instanceof NonTransientDataAccessException && !(ex instanceof DataAccessResourceFailureException);
+    }
+
+    // The hearts, xp and summary counts were applied when the submission committed; only the
+    // row is lost, so log it in full
+    private void drop(List<PendingProgress> records, String reason, DataAccessException ex) {
+        dropped.increment(records.size());
+        logger.error("Dropping {} buffered progress records {}: {}", records.size(), reason, records, ex);
+    }
+
+    // The rows and the release of their claims commit together
+    private void insert(List<PendingProgress> batch) {
+        transactionTemplate.executeWithoutResult(_ -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, progress) -> {
+                statement.setObject(1, progress.id());
+                statement.setObject(2, progress.profileId());
+                statement.setObject(3, progress.exerciseId());
+                statement.setBoolean(4, progress.correct());
+                statement.setString(5, progress.outcome().name());
+                statement.setTimestamp(6, Timestamp.valueOf(progress.completedAt()));
+                statement.setString(7, progress.userAnswer());
+                statement.setInt(8, progress.xpEarned());
+                statement.setInt(9, progress.heartsUsed());
+            });
+            jdbcTemplate.batchUpdate(RELEASE_CLAIM_SQL, batch, batch.size(), (statement, progress) -> {
+                statement.setObject(1, progress.userId());
+                statement.setObject(2, progress.exerciseId());
+            });
+        });
+    }
+}
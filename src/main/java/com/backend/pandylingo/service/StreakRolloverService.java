@@ -0,0 +1,251 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.model.JobCheckpoint;
+import com.backend.pandylingo.repository.JobCheckpointRepository;
+import com.backend.pandylingo.repository.UserProfileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streak rollover as set-based updates, one time zone cohort at a time as each reaches its local
+ * midnight: lapsed streaks spend a freeze or are reset by two bulk statements per chunk of
+ * user_profiles ids. Every chunk commits on its own together with its checkpoint, so locks are
+ * held briefly and an interrupted run continues where it stopped. A cohort's id space can be
+ * split into partitions that run on parallel workers.
+ */
+@Service
+public class StreakRolloverService {
+    private static final Logger logger = LoggerFactory.getLogger(StreakRolloverService.class);
+
+    public static final String JOB_NAME = "streak-rollover";
+
+    // Exclusive upper bound of the last partition; no generated (version 4) id has every bit set
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    // One time zone's rollover into its local day today
+    private record Cohort(String timeZone, LocalDate today, LocalDateTime cutoff, String runKey) {
+        String jobName() {
+            return JOB_NAME + ":" + timeZone;
+        }
+    }
+
+    private record Partition(int index, UUID start, UUID end) {}
+
+    private record ChunkResult(UUID next, int freezesUsed, int streaksReset) {}
+
+    private final UserProfileRepository userProfileRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int workers;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger pendingPartitions = new AtomicInteger();
+    private final Counter cohorts;
+    private final Counter chunks;
+    private final Counter freezesUsed;
+    private final Counter streaksReset;
+    private final Timer duration;
+
+    public StreakRolloverService(
+            UserProfileRepository userProfileRepository,
+            JobCheckpointRepository checkpointRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${streak.rollover.chunk-size:1000}") int chunkSize,
+            @Value("${streak.rollover.workers:1}") int workers
+    ) {
+        this.userProfileRepository = userProfileRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+        // Partitions split on the first id byte
+        this.workers = Math.clamp(workers, 1, 256);
+
+        this.cohorts = Counter.builder("streak.rollover.cohorts").register(meterRegistry);
+        this.chunks = Counter.builder("streak.rollover.chunks").register(meterRegistry);
+        this.freezesUsed = Counter.builder("streak.rollover.users").tag("action", "freeze_used").register(meterRegistry);
+        this.streaksReset = Counter.builder("streak.rollover.users").tag("action", "streak_reset").register(meterRegistry);
+        this.duration = Timer.builder("streak.rollover.duration").register(meterRegistry);
+        Gauge.builder("streak.rollover.partitions.pending", pendingPartitions, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Rolls streaks over for every time zone cohort whose local day has started since its last
+     * rollover, normally the zones whose midnight just passed. In each cohort, users whose last
+     * streak update is before their local yesterday spend a freeze, or lose their streak if they
+     * have none left. Cohorts missed while the application was down are caught up on the next call.
+     */
+    public void rolloverDueCohorts() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Streak rollover already running, skipping");
+            return;
+        }
+        try {
+            duration.record(this::runDueCohorts);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runDueCohorts() {
+        Instant now = Instant.now();
+        Map<String, Map<Integer, JobCheckpoint>> checkpoints = checkpointsByJob();
+
+        for (String timeZone : userProfileRepository.findTimeZones()) {
+            ZoneId zone;
+            try {
+                zone = ZoneId.of(timeZone);
+            } catch (DateTimeException ex) {
+                logger.warn("Skipping streak rollover for unknown time zone {}", timeZone);
+                continue;
+            }
+
+            LocalDate today = LocalDate.ofInstant(now, zone);
+            // Start of the user's yesterday, as the server-local time last_streak_update is stored in
+            LocalDateTime cutoff = today.minusDays(1).atStartOfDay(zone)
+                    .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            Cohort cohort = new Cohort(timeZone, today, cutoff, runKey(today));
+
+            Map<Integer, JobCheckpoint> cohortCheckpoints = checkpoints.getOrDefault(cohort.jobName(), Map.of());
+            List<Partition> pending = pendingPartitions(cohort, cohortCheckpoints);
+            if (!pending.isEmpty()) {
+                cohorts.increment();
+                runCohort(cohort, pending, cohortCheckpoints);
+            }
+        }
+    }
+
+    private void runCohort(Cohort cohort, List<Partition> pending, Map<Integer, JobCheckpoint> checkpoints) {
+        pendingPartitions.set(pending.size());
+
+        if (pending.size() == 1) {
+            runPartition(cohort, pending.getFirst(), checkpoints.get(pending.getFirst().index()));
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, pending.size()));
+            try {
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Partition partition : pending) {
+                    tasks.add(() -> {
+                        runPartition(cohort, partition, checkpoints.get(partition.index()));
+                        return null;
+                    });
+                }
+                executor.invokeAll(tasks);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        if (pendingPartitions.get() == 0) {
+            logger.info("Streak rollover for {} on {} completed", cohort.timeZone(), cohort.today());
+        } else {
+            logger.warn("Streak rollover for {} on {} left {} partitions unfinished",
+                    cohort.timeZone(), cohort.today(), pendingPartitions.get());
+        }
+    }
+
+    private void runPartition(Cohort cohort, Partition partition, JobCheckpoint checkpoint) {
+        UUID from = checkpoint != null && checkpoint.getRunKey().equals(cohort.runKey())
+                ? checkpoint.getResumeFrom()
+                : partition.start();
+        try {
+            while (true) {
+                UUID chunkStart = from;
+                ChunkResult result = transactionTemplate.execute(_ -> rolloverChunk(cohort, partition, chunkStart));
+                chunks.increment();
+                freezesUsed.increment(result.freezesUsed());
+                streaksReset.increment(result.streaksReset());
+                if (result.next().equals(partition.end())) {
+                    break;
+                }
+                from = result.next();
+            }
+            pendingPartitions.decrementAndGet();
+        } catch (RuntimeException ex) {
+            // The checkpoint keeps the last committed chunk; the next run continues from there
+            logger.error("Streak rollover for {} partition {} failed at {}",
+                    cohort.timeZone(), partition.index(), from, ex);
+        }
+    }
+
+    private ChunkResult rolloverChunk(Cohort cohort, Partition partition, UUID from) {
+        String zone = cohort.timeZone();
+        UUID end = userProfileRepository.findChunkEnd(zone, from, partition.end(), chunkSize)
+                .orElse(partition.end());
+        // The freeze covers yesterday, so the reset below no longer sees those rows
+        int frozen = userProfileRepository.consumeStreakFreezes(zone, from, end, cohort.cutoff(), cohort.cutoff());
+        int reset = userProfileRepository.resetLapsedStreaks(zone, from, end, cohort.cutoff());
+
+        checkpointRepository.save(JobCheckpoint.builder()
+                .jobName(cohort.jobName())
+                .partitionIndex(partition.index())
+                .runKey(cohort.runKey())
+                .resumeFrom(end)
+                .completed(end.equals(partition.end()))
+                .updatedAt(LocalDateTime.now())
+                .build());
+        return new ChunkResult(end, frozen, reset);
+    }
+
+    private List<Partition> pendingPartitions(Cohort cohort, Map<Integer, JobCheckpoint> checkpoints) {
+        List<Partition> pending = new ArrayList<>();
+        for (Partition partition : partitions()) {
+            JobCheckpoint checkpoint = checkpoints.get(partition.index());
+            if (checkpoint == null || !checkpoint.getRunKey().equals(cohort.runKey()) || !checkpoint.isCompleted()) {
+                pending.add(partition);
+            }
+        }
+        return pending;
+    }
+
+    // Checkpoints of every cohort, by job name then partition
+    private Map<String, Map<Integer, JobCheckpoint>> checkpointsByJob() {
+        Map<String, Map<Integer, JobCheckpoint>> checkpoints = new HashMap<>();
+        for (JobCheckpoint checkpoint : checkpointRepository.findByJobNameStartingWith(JOB_NAME + ":")) {
+            checkpoints.computeIfAbsent(checkpoint.getJobName(), _ -> new HashMap<>())
+                    .put(checkpoint.getPartitionIndex(), checkpoint);
+        }
+        return checkpoints;
+    }
+
+    // Changing the number of workers changes the partitions, so it starts the day over
+    private String runKey(LocalDate today) {
+        return today + "/" + workers;
+    }
+
+    // Postgres compares uuids bytewise, so ranges of the first byte are contiguous id ranges
+    private List<Partition> partitions() {
+        List<Partition> partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            UUID end = i == workers - 1 ? MAX_ID : boundary(i + 1);
+            partitions.add(new Partition(i, boundary(i), end));
+        }
+        return partitions;
+    }
+
+    private UUID boundary(int index) {
+        return new UUID((long) (index * 256 / workers) << 56, 0L);
+    }
+}
@@ -0,0 +1,147 @@
+package com.backend.pandylingo.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order-statistic treap over (xp descending, user id ascending). Every node stores the
+ * size of its subtree, so inserts, removals, rank lookups and positional access are
+ * O(log n) expected, and reading k consecutive ranks costs O(log n + k).
+ * Not thread-safe; callers guard it with their own lock.
+ */
+class XpRankTree {
+
+    private static final class Node {
+        final int xp;
+        final UUID userId;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(int xp, UUID userId) {
+            this.xp = xp;
+            this.userId = userId;
+        }
+    }
+
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(int xp, UUID userId) {
+        Node[] parts = split(root, xp, userId);
+        root = merge(merge(parts[0], new Node(xp, userId)), parts[1]);
+    }
+
+    void remove(int xp, UUID userId) {
+        Node[] parts = split(root, xp, userId);
+        Node[] first = splitFirst(parts[1]);
+        if (first[0] != null && compare(first[0].xp, first[0].userId, xp, userId) != 0) {
+            // Not present: put everything back untouched
+            root = merge(parts[0], merge(first[0], first[1]));
+            return;
+        }
+        root = merge(parts[0], first[1]);
+    }
+
+    // Zero-based position of the entry, i.e. the number of entries ranked above it
+    int rankOf(int xp, UUID userId) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(xp, userId, node.xp, node.userId);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    // Appends the user ids at positions [from, from + count) in rank order
+    void collect(int from, int count, List<UUID> out) {
+        collect(root, from, from + count, 0, out);
+    }
+
+    private void collect(Node node, int from, int to, int offset, List<UUID> out) {
+        if (node == null || offset >= to || offset + node.size <= from) {
+            return;
+        }
+        int position = offset + size(node.left);
+        collect(node.left, from, to, offset, out);
+        if (position >= from && position < to) {
+            out.add(node.userId);
+        }
+        collect(node.right, from, to, position + 1, out);
+    }
+
+    // Splits into entries ranked strictly above the key and entries at or below it
+    private Node[] split(Node node, int xp, UUID userId) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(node.xp, node.userId, xp, userId) < 0) {
+            Node[] parts = split(node.right, xp, userId);
+            node.right = parts[0];
+            update(node);
+            return new Node[]{node, parts[1]};
+        }
+        Node[] parts = split(node.left, xp, userId);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    // Detaches the highest-ranked entry of the subtree
+    private Node[] splitFirst(Node node) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (node.left == null) {
+            Node rest = node.right;
+            node.right = null;
+            update(node);
+            return new Node[]{node, rest};
+        }
+        Node[] parts = splitFirst(node.left);
+        node.left = parts[1];
+        update(node);
+        return new Node[]{parts[0], node};
+    }
+
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static int compare(int xpA, UUID userA, int xpB, UUID userB) {
+        int byXp = Integer.compare(xpB, xpA);
+        return byXp != 0 ? byXp : userA.compareTo(userB);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+}
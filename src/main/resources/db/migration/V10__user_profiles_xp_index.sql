@@ -0,0 +1,2 @@
+-- Keyset order of the leaderboard reload and cursor pages
+CREATE INDEX IF NOT EXISTS idx_user_profiles_xp_user ON user_profiles (xp_points DESC, user_id);
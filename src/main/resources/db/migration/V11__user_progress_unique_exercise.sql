@@ -0,0 +1,10 @@
+-- Concurrent double submissions could leave several rows for one exercise; keep the first completion
+DELETE FROM user_progress up
+USING (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id, exercise_id ORDER BY completed DESC, completed_at, id) AS position
+    FROM user_progress
+) ranked
+WHERE up.id = ranked.id AND ranked.position > 1;
+
+-- A submission claims its exercise by inserting against this key before anything is awarded
+CREATE UNIQUE INDEX IF NOT EXISTS uk_user_progress_user_exercise ON user_progress (user_id, exercise_id);
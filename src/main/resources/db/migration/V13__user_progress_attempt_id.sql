@@ -0,0 +1,4 @@
+-- Client-generated id of an offline attempt; sync retries conflict on it instead of inserting twice
+ALTER TABLE user_progress ADD COLUMN IF NOT EXISTS attempt_id UUID;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_user_progress_attempt ON user_progress (attempt_id);
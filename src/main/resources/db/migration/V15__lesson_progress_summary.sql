@@ -0,0 +1,21 @@
+ALTER TABLE lessons ADD COLUMN IF NOT EXISTS exercise_count INT NOT NULL DEFAULT 0;
+
+UPDATE lessons l SET exercise_count = (SELECT COUNT(*) FROM exercises e WHERE e.lesson_id = l.id);
+
+CREATE TABLE IF NOT EXISTS lesson_progress_summary (
+    user_id   UUID NOT NULL,
+    lesson_id UUID NOT NULL,
+    completed INT  NOT NULL DEFAULT 0,
+    correct   INT  NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, lesson_id)
+);
+
+-- Runs exactly once, so the counters maintained from here on start from the existing progress rows
+INSERT INTO lesson_progress_summary (user_id, lesson_id, completed, correct)
+SELECT p.user_id, e.lesson_id, COUNT(*), COUNT(*) FILTER (WHERE up.correct)
+FROM user_progress up
+JOIN user_profiles p ON p.id = up.user_id
+JOIN exercises e ON e.id = up.exercise_id
+WHERE up.completed = true
+GROUP BY p.user_id, e.lesson_id
+ON CONFLICT (user_id, lesson_id) DO UPDATE SET completed = EXCLUDED.completed, correct = EXCLUDED.correct;
@@ -0,0 +1,13 @@
+ALTER TABLE lesson_progress_summary ADD COLUMN IF NOT EXISTS xp_earned INT NOT NULL DEFAULT 0;
+
+-- Existing summaries start from the xp of the progress rows they count
+UPDATE lesson_progress_summary s SET xp_earned = totals.xp
+FROM (
+    SELECT p.user_id, e.lesson_id, SUM(up.xp_earned) AS xp
+    FROM user_progress up
+    JOIN user_profiles p ON p.id = up.user_id
+    JOIN exercises e ON e.id = up.exercise_id
+    WHERE up.completed = true
+    GROUP BY p.user_id, e.lesson_id
+) totals
+WHERE s.user_id = totals.user_id AND s.lesson_id = totals.lesson_id;
@@ -0,0 +1,2 @@
+-- Keyset order of the progress history pages
+CREATE INDEX IF NOT EXISTS idx_user_progress_user_completed_at ON user_progress (user_id, completed_at DESC, id DESC);
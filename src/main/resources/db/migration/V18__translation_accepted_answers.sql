@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS translation_accepted_answers (
+    exercise_id UUID         NOT NULL REFERENCES exercises (id) ON DELETE CASCADE,
+    answer      VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_translation_accepted_answers_exercise ON translation_accepted_answers (exercise_id);
@@ -0,0 +1,2 @@
+-- Null for answers recorded before outcomes were stored
+ALTER TABLE user_progress ADD COLUMN IF NOT EXISTS outcome VARCHAR(20);
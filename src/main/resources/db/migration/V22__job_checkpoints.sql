@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS job_checkpoints (
+    job_name        VARCHAR(255) NOT NULL,
+    partition_index INT          NOT NULL,
+    run_key         VARCHAR(255) NOT NULL,
+    resume_from     UUID         NOT NULL,
+    completed       BOOLEAN      NOT NULL DEFAULT FALSE,
+    updated_at      TIMESTAMP    NOT NULL,
+    PRIMARY KEY (job_name, partition_index)
+);
@@ -0,0 +1,5 @@
+-- IANA zone id; existing users are given the server zone at startup
+ALTER TABLE user_profiles ADD COLUMN IF NOT EXISTS time_zone VARCHAR(64);
+
+-- Streak rollover walks one time zone cohort at a time in id order
+CREATE INDEX IF NOT EXISTS idx_user_profiles_time_zone_id ON user_profiles (time_zone, id);
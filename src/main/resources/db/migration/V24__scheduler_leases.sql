@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    name         VARCHAR(255) PRIMARY KEY,
+    owner        VARCHAR(255) NOT NULL,
+    acquired_at  TIMESTAMP    NOT NULL,
+    heartbeat_at TIMESTAMP    NOT NULL,
+    expires_at   TIMESTAMP    NOT NULL
+);
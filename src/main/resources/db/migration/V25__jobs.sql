@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS jobs (
+    id           UUID PRIMARY KEY,
+    type         VARCHAR(100) NOT NULL,
+    payload      TEXT,
+    status       VARCHAR(16)  NOT NULL,
+    attempts     INT          NOT NULL DEFAULT 0,
+    max_attempts INT          NOT NULL,
+    run_at       TIMESTAMP    NOT NULL,
+    lock_token   UUID,
+    locked_until TIMESTAMP,
+    -- At most one unfinished job per key; cleared when a job fails
+    dedupe_key   VARCHAR(255) UNIQUE,
+    last_error   VARCHAR(1000),
+    created_at   TIMESTAMP    NOT NULL,
+    finished_at  TIMESTAMP
+);
+
+-- Claims pick the oldest ready job
+CREATE INDEX IF NOT EXISTS idx_jobs_status_run_at ON jobs (status, run_at);
@@ -0,0 +1,6 @@
+-- Answers claimed by the write-behind buffer until their user_progress row is written
+CREATE TABLE IF NOT EXISTS progress_claims (
+    user_id     UUID NOT NULL,
+    exercise_id UUID NOT NULL,
+    PRIMARY KEY (user_id, exercise_id)
+);
@@ -0,0 +1,5 @@
+-- Access tokens carry the epoch they were issued under; bumping it revokes them
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_epoch INT NOT NULL DEFAULT 0;
+
+-- Every node polls the users with a bumped epoch
+CREATE INDEX IF NOT EXISTS idx_users_token_epoch ON users (id, token_epoch) WHERE token_epoch > 0;
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS revoked_refresh_tokens (
+    jti        UUID PRIMARY KEY,
+    user_id    UUID      NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL
+);
+
+-- Compaction deletes rows whose token has expired
+CREATE INDEX IF NOT EXISTS idx_revoked_refresh_tokens_expires_at ON revoked_refresh_tokens (expires_at);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS xp_buckets (
+    user_id     UUID        NOT NULL,
+    period_type VARCHAR(10) NOT NULL,
+    period_key  VARCHAR(10) NOT NULL,
+    xp          INT         NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, period_type, period_key)
+);
+
+-- Ranks one period by xp
+CREATE INDEX IF NOT EXISTS idx_xp_buckets_period_xp ON xp_buckets (period_type, period_key, xp DESC);
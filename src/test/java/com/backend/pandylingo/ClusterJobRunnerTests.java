@@ -0,0 +1,71 @@
+package com.backend.pandylingo;
+
+import com.backend.pandylingo.scheduler.ClusterJobRunner;
+import com.backend.pandylingo.scheduler.InMemorySchedulerLock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterJobRunnerTests {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Duration LEASE = Duration.ofSeconds(60);
+
+    // One lease table shared by every simulated node
+    private final Map<String, InMemorySchedulerLock.Lease> leases = new ConcurrentHashMap<>();
+
+    private InMemorySchedulerLock node(String owner, Duration elapsed) {
+        return new InMemorySchedulerLock(leases, owner, Clock.fixed(START.plus(elapsed), ZoneOffset.UTC));
+    }
+
+    private ClusterJobRunner runner(InMemorySchedulerLock lock) {
+        return new ClusterJobRunner(lock, new SimpleMeterRegistry(), LEASE.toSeconds());
+    }
+
+    @Test
+    void onlyOneNodeRunsWhileTheLeaseIsHeld() {
+        ClusterJobRunner first = runner(node("a", Duration.ZERO));
+        ClusterJobRunner second = runner(node("b", Duration.ZERO));
+        AtomicInteger runs = new AtomicInteger();
+
+        boolean ran = first.runExclusively("job", () -> {
+            runs.incrementAndGet();
+            assertFalse(second.runExclusively("job", runs::incrementAndGet));
+        });
+
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+        // Released when the run ended
+        assertTrue(second.runExclusively("job", runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void crashedHoldersLeaseExpires() {
+        // The holder takes the lease and never releases or renews it
+        assertTrue(node("crashed", Duration.ZERO).tryAcquire("job", LEASE));
+
+        AtomicInteger runs = new AtomicInteger();
+        assertFalse(runner(node("b", LEASE.minusSeconds(1))).runExclusively("job", runs::incrementAndGet));
+        assertTrue(runner(node("b", LEASE)).runExclusively("job", runs::incrementAndGet));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void renewFailsOnceAnotherNodeTookOver() {
+        InMemorySchedulerLock crashed = node("a", Duration.ZERO);
+        assertTrue(crashed.tryAcquire("job", LEASE));
+        assertTrue(node("b", LEASE.multipliedBy(2)).tryAcquire("job", LEASE));
+
+        assertFalse(crashed.renew("job", LEASE));
+    }
+}
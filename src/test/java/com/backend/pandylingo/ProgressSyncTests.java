@@ -0,0 +1,123 @@
+package com.backend.pandylingo;
+
+import com.backend.pandylingo.dto.progress.ProgressSyncRequest;
+import com.backend.pandylingo.dto.progress.ProgressSyncResponse;
+import com.backend.pandylingo.model.*;
+import com.backend.pandylingo.repository.*;
+import com.backend.pandylingo.service.ProgressSyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProgressSyncTests {
+
+    private static final int XP_REWARD = 10;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private LessonProgressSummaryRepository lessonProgressSummaryRepository;
+
+    @Autowired
+    private ProgressSyncService progressSyncService;
+
+    private User user;
+    private Lesson lesson;
+
+    @BeforeEach
+    void createUserAndLesson() {
+        user = User.builder()
+                .fullName("Sync Test")
+                .email("sync-" + UUID.randomUUID() + "@example.com")
+                .password("unused")
+                .role(Role.USER)
+                .build();
+        // A streak that lapsed ten days ago and was reset by the rollover
+        user.setUserProfile(UserProfile.builder()
+                .user(user)
+                .age(20)
+                .hearts(5)
+                .xpPoints(0)
+                .streak(0)
+                .lastStreakUpdate(LocalDateTime.now().minusDays(10))
+                .build());
+        user = userRepository.save(user);
+
+        lesson = lessonRepository.save(Lesson.builder()
+                .title("Sync " + UUID.randomUUID())
+                .language(Language.SPANISH)
+                .difficulty(Difficulty.BEGINNER)
+                .build());
+    }
+
+    @AfterEach
+    void deleteUserAndLesson() {
+        UUID profileId = userProfileRepository.findByUserId(user.getId()).orElseThrow().getId();
+        userProgressRepository.deleteAll(userProgressRepository.findByUserId(profileId));
+        lessonProgressSummaryRepository.deleteById(new LessonProgressSummary.Key(user.getId(), lesson.getId()));
+        lessonRepository.deleteById(lesson.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void answersOlderThanTheOfflineWindowAreRefused() {
+        LocalDateTime now = LocalDateTime.now();
+        // One answer for each of the nine days after the lapse, then one from an hour ago
+        List<ProgressSyncRequest.Item> items = new ArrayList<>();
+        for (int daysAgo = 9; daysAgo >= 1; daysAgo--) {
+            items.add(item(now.minusDays(daysAgo)));
+        }
+        items.add(item(now.minusHours(1)));
+
+        ProgressSyncResponse response = progressSyncService.sync(user.getId(), new ProgressSyncRequest(items));
+
+        List<ProgressSyncResponse.Status> statuses = response.getResults().stream()
+                .map(ProgressSyncResponse.ItemResult::getStatus)
+                .toList();
+        // 72 hours: only the last two full days and the recent answer fit
+        long applied = statuses.stream().filter(status -> status == ProgressSyncResponse.Status.APPLIED).count();
+        long expired = statuses.stream().filter(status -> status == ProgressSyncResponse.Status.EXPIRED).count();
+        assertEquals(3, applied);
+        assertEquals(items.size() - 3, expired);
+
+        UserProfile profile = userProfileRepository.findByUserId(user.getId()).orElseThrow();
+        assertEquals(3 * XP_REWARD, profile.getXpPoints());
+        // Nine backdated days would have rebuilt the lapsed streak; the window leaves at most three
+        assertTrue(profile.getStreak() <= 3);
+    }
+
+    private ProgressSyncRequest.Item item(LocalDateTime answeredAt) {
+        Exercise exercise = exerciseRepository.save(TranslationExercise.builder()
+                .question("Hello")
+                .correctAnswer("hola")
+                .lesson(lesson)
+                .xpReward(XP_REWARD)
+                .heartsCost(0)
+                .build());
+        return new ProgressSyncRequest.Item(UUID.randomUUID(), exercise.getId(), "hola", answeredAt);
+    }
+}
@@ -0,0 +1,164 @@
+package com.backend.pandylingo;
+
+import com.backend.pandylingo.exception.ConflictException;
+import com.backend.pandylingo.model.*;
+import com.backend.pandylingo.repository.*;
+import com.backend.pandylingo.service.ProgressService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class UserProfileConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final int MAX_HEARTS = 5;
+    private static final int XP_REWARD = 10;
+    private static final int HEARTS_COST = 1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ExerciseRepository exerciseRepository;
+
+    @Autowired
+    private LessonProgressSummaryRepository lessonProgressSummaryRepository;
+
+    @Autowired
+    private ProgressService progressService;
+
+    private User user;
+    private Lesson lesson;
+
+    @BeforeEach
+    void createUser() {
+        user = User.builder()
+                .fullName("Concurrency Test")
+                .email("concurrency-" + UUID.randomUUID() + "@example.com")
+                .password("unused")
+                .role(Role.USER)
+                .build();
+        user.setUserProfile(UserProfile.builder()
+                .user(user)
+                .age(20)
+                .hearts(THREADS / 2)
+                .xpPoints(0)
+                .build());
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        UUID profileId = userProfileRepository.findByUserId(user.getId()).orElseThrow().getId();
+        userProgressRepository.deleteAll(userProgressRepository.findByUserId(profileId));
+        if (lesson != null) {
+            lessonProgressSummaryRepository.deleteById(new LessonProgressSummary.Key(user.getId(), lesson.getId()));
+            lessonRepository.deleteById(lesson.getId());
+        }
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void parallelSubmissionsNeverOverspendHeartsOrLoseXp() throws Exception {
+        UUID profileId = userProfileRepository.findByUserId(user.getId()).orElseThrow().getId();
+
+        int succeeded = runConcurrently(() ->
+                userProfileRepository.spendHeartsAndAddXp(profileId, 1, 10, MAX_HEARTS, LocalDateTime.now()));
+
+        UserProfile profile = userProfileRepository.findById(profileId).orElseThrow();
+        assertEquals(THREADS / 2, succeeded);
+        assertEquals(0, profile.getHearts());
+        assertEquals(succeeded * 10, profile.getXpPoints());
+    }
+
+    @Test
+    void parallelSubmissionsOfOneExerciseAwardItOnce() throws Exception {
+        UUID profileId = userProfileRepository.findByUserId(user.getId()).orElseThrow().getId();
+        lesson = lessonRepository.save(Lesson.builder()
+                .title("Concurrency " + UUID.randomUUID())
+                .language(Language.SPANISH)
+                .difficulty(Difficulty.BEGINNER)
+                .build());
+        Exercise exercise = exerciseRepository.save(TranslationExercise.builder()
+                .question("Hello")
+                .correctAnswer("hola")
+                .lesson(lesson)
+                .xpReward(XP_REWARD)
+                .heartsCost(HEARTS_COST)
+                .build());
+
+        int succeeded = runConcurrently(() -> {
+            try {
+                progressService.submitExercise(user.getId(), exercise.getId(), "hola");
+                return 1;
+            } catch (ConflictException ex) {
+                return 0;
+            }
+        });
+
+        UserProfile profile = userProfileRepository.findById(profileId).orElseThrow();
+        assertEquals(1, succeeded);
+        assertEquals(1, userProgressRepository.findByUserId(profileId).size());
+        assertEquals(XP_REWARD, profile.getXpPoints());
+        assertEquals(THREADS / 2 - HEARTS_COST, profile.getHearts());
+    }
+
+    @Test
+    void parallelStreakFreezePurchasesNeverOverspendXp() throws Exception {
+        UUID profileId = userProfileRepository.findByUserId(user.getId()).orElseThrow().getId();
+        userProfileRepository.spendHeartsAndAddXp(profileId, 0, 1000, MAX_HEARTS, LocalDateTime.now());
+
+        int succeeded = runConcurrently(() -> userProfileRepository.buyStreakFreeze(user.getId(), 200));
+
+        UserProfile profile = userProfileRepository.findById(profileId).orElseThrow();
+        assertEquals(5, succeeded);
+        assertEquals(0, profile.getXpPoints());
+        assertEquals(5, profile.getStreakFreezeCount());
+    }
+
+    // Starts every attempt at once and returns how many of them updated the row
+    private int runConcurrently(Callable<Integer> attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    succeeded.addAndGet(attempt.call());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded.get();
+    }
+}
@@ -0,0 +1,59 @@
+package com.backend.pandylingo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTests {
+
+    private final Random random = new Random(42);
+
+    private UUID randomId() {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+
+    @Test
+    void neverForgetsAnAddedId() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = randomId();
+            filter.add(id);
+            added.add(id);
+        }
+
+        for (UUID id : added) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void keepsTheFalsePositiveRateNearTheConfiguredOne() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(randomId());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(randomId())) {
+                falsePositives++;
+            }
+        }
+        // Leaves room for sampling noise around the 1% target
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, () -> "false positive rate: " + rate);
+    }
+
+    @Test
+    void startsEmpty() {
+        BloomFilter filter = new BloomFilter(1, 0.01);
+        assertFalse(filter.mightContain(randomId()));
+    }
+}
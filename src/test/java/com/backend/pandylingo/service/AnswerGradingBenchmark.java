@@ -0,0 +1,96 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.config.GradingProperties;
+import com.backend.pandylingo.model.Language;
+import com.backend.pandylingo.model.Lesson;
+import com.backend.pandylingo.model.TranslationExercise;
+import com.backend.pandylingo.repository.LessonRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of grading one translation answer: the plain case-insensitive comparison grading
+ * started from, the normalized key lookup, and the lookup plus the bounded edit distance
+ * that typo tolerance adds when the lookup misses. Not run by the test suite; start
+ * {@link #main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class AnswerGradingBenchmark {
+
+    private static final String CORRECT_ANSWER = "Me gustaría un café con leche, por favor";
+
+    @Param({"exact", "differentCase", "typo", "wrong"})
+    public String kind;
+
+    private String answer;
+    private TranslationExercise exercise;
+    private AnswerGrader strictGrader;
+    private AnswerGrader tolerantGrader;
+
+    @Setup
+    public void setUp() {
+        answer = switch (kind) {
+            case "exact" -> CORRECT_ANSWER;
+            case "differentCase" -> "me gustaria un cafe con leche por favor";
+            case "typo" -> "Me gustaria un cafe con lece, por fabor";
+            default -> "Quiero un té verde, por favor";
+        };
+
+        exercise = TranslationExercise.builder()
+                .id(UUID.randomUUID())
+                .question("I would like a coffee with milk, please")
+                .correctAnswer(CORRECT_ANSWER)
+                .lesson(Lesson.builder().id(UUID.randomUUID()).build())
+                .xpReward(10)
+                .heartsCost(1)
+                .build();
+
+        LessonRepository lessonRepository = mock(LessonRepository.class);
+        when(lessonRepository.findLanguageById(any())).thenReturn(Optional.of(Language.SPANISH));
+
+        GradingProperties strict = new GradingProperties();
+        strict.setEnabled(false);
+        strictGrader = new AnswerGrader(lessonRepository, strict, 1000, 3600);
+        tolerantGrader = new AnswerGrader(lessonRepository, new GradingProperties(), 1000, 3600);
+
+        // Compile and cache the answer key outside the measurement
+        strictGrader.grade(exercise, answer);
+        tolerantGrader.grade(exercise, answer);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCase() {
+        return exercise.getCorrectAnswer().equalsIgnoreCase(answer.trim());
+    }
+
+    @Benchmark
+    public AnswerGrader.Grade normalizedLookup() {
+        return strictGrader.grade(exercise, answer);
+    }
+
+    @Benchmark
+    public AnswerGrader.Grade typoTolerant() {
+        return tolerantGrader.grade(exercise, answer);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AnswerGradingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
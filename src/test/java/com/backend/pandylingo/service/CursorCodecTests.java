@@ -0,0 +1,53 @@
+package com.backend.pandylingo.service;
+
+import com.backend.pandylingo.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorCodecTests {
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void leaderboardCursorRoundTrips() {
+        LeaderboardService.Cursor cursor = new LeaderboardService.Cursor(1250, UUID.randomUUID());
+        assertEquals(cursor, LeaderboardService.Cursor.decode(cursor.encode()));
+
+        LeaderboardService.Cursor zero = new LeaderboardService.Cursor(0, new UUID(0, 0));
+        assertEquals(zero, LeaderboardService.Cursor.decode(zero.encode()));
+    }
+
+    @Test
+    void leaderboardCursorRejectsMalformedInput() {
+        for (String encoded : new String[]{"", "not base64!", base64("1250"), base64("abc:" + UUID.randomUUID()),
+                base64("1250:not-a-uuid")}) {
+            assertThrows(BadRequestException.class, () -> LeaderboardService.Cursor.decode(encoded), encoded);
+        }
+    }
+
+    @Test
+    void progressHistoryCursorRoundTrips() {
+        // Keeps nanoseconds, and a whole minute whose text form drops the seconds
+        for (LocalDateTime completedAt : new LocalDateTime[]{LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000),
+                LocalDateTime.of(2026, 1, 1, 0, 0)}) {
+            ProgressHistoryService.Cursor cursor = new ProgressHistoryService.Cursor(completedAt, UUID.randomUUID());
+            assertEquals(cursor, ProgressHistoryService.Cursor.decode(cursor.encode()));
+        }
+    }
+
+    @Test
+    void progressHistoryCursorRejectsMalformedInput() {
+        for (String encoded : new String[]{"", "not base64!", base64("2026-01-01T00:00"),
+                base64("yesterday|" + UUID.randomUUID()), base64("2026-01-01T00:00|not-a-uuid")}) {
+            assertThrows(BadRequestException.class, () -> ProgressHistoryService.Cursor.decode(encoded), encoded);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.backend.pandylingo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EditDistanceTests {
+
+    // ASCII plus characters that take the non-ASCII mask path
+    private static final char[] ALPHABET = {'a', 'b', 'c', 'd', ' ', 'é', 'ñ', 'ü', '日', '本', '語'};
+
+    private final Random random = new Random(20261018);
+
+    @Test
+    void matchesTheReferenceDistanceAcrossTheBitParallelBoundary() {
+        for (int length : new int[]{1, 2, 31, 63, 64, 65, 100}) {
+            for (int round = 0; round < 300; round++) {
+                String pattern = randomString(length);
+                // Mostly near misses, which is what grading sees, plus unrelated texts
+                String text = round % 4 == 0 ? randomString(Math.max(0, length + random.nextInt(7) - 3))
+                        : mutate(pattern, random.nextInt(5));
+                int expected = reference(pattern, text);
+                EditDistance distance = new EditDistance(pattern);
+
+                for (int limit = 0; limit <= 6; limit++) {
+                    assertEquals(Math.min(expected, limit + 1), distance.distance(text, limit),
+                            () -> "pattern=" + pattern + " text=" + text);
+                }
+            }
+        }
+    }
+
+    @Test
+    void reportsTheExactDistanceAtTheLimitAndOneMoreJustBelowIt() {
+        for (int length : new int[]{1, 63, 64, 65}) {
+            for (int round = 0; round < 200; round++) {
+                String pattern = randomString(length);
+                String text = mutate(pattern, 1 + random.nextInt(4));
+                int expected = reference(pattern, text);
+                EditDistance distance = new EditDistance(pattern);
+
+                assertEquals(expected, distance.distance(text, expected));
+                if (expected > 0) {
+                    assertEquals(expected, distance.distance(text, expected - 1));
+                }
+                assertEquals(expected, distance.distance(text, expected + 1));
+            }
+        }
+    }
+
+    @Test
+    void handlesEmptyAndIdenticalTexts() {
+        EditDistance distance = new EditDistance("hola");
+        assertEquals(0, distance.distance("hola", 0));
+        assertEquals(1, distance.distance("hol", 2));
+        assertEquals(3, distance.distance("", 2));
+        assertEquals(0, new EditDistance("").distance("", 0));
+        assertEquals(2, new EditDistance("").distance("ab", 2));
+        assertEquals(1, new EditDistance("日本語").distance("日本", 1));
+    }
+
+    private String randomString(int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return builder.toString();
+    }
+
+    // Applies random insertions, deletions and substitutions
+    private String mutate(String source, int edits) {
+        StringBuilder builder = new StringBuilder(source);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.isEmpty() ? 0 : random.nextInt(builder.length());
+            char c = ALPHABET[random.nextInt(ALPHABET.length)];
+            switch (builder.isEmpty() ? 0 : random.nextInt(3)) {
+                case 0 -> builder.insert(position, c);
+                case 1 -> builder.deleteCharAt(position);
+                default -> builder.setCharAt(position, c);
+            }
+        }
+        return builder.toString();
+    }
+
+    // Unbounded two-row Levenshtein distance
+    private static int reference(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,88 @@
+package com.backend.pandylingo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XpRankTreeTests {
+
+    private record Entry(int xp, UUID userId) {
+    }
+
+    private static final Comparator<Entry> RANK_ORDER = Comparator.comparingInt(Entry::xp).reversed()
+            .thenComparing(Entry::userId);
+
+    @Test
+    void agreesWithASortedListUnderRandomInsertsAndRemovals() {
+        Random random = new Random(7);
+        XpRankTree tree = new XpRankTree();
+        List<Entry> reference = new ArrayList<>();
+
+        for (int step = 0; step < 5000; step++) {
+            if (reference.isEmpty() || random.nextInt(3) > 0) {
+                // A narrow xp range so ties are common and fall back to the user id
+                Entry entry = new Entry(random.nextInt(50), new UUID(random.nextLong(), random.nextLong()));
+                tree.insert(entry.xp(), entry.userId());
+                reference.add(entry);
+            } else {
+                Entry entry = reference.remove(random.nextInt(reference.size()));
+                tree.remove(entry.xp(), entry.userId());
+            }
+            reference.sort(RANK_ORDER);
+            assertEquals(reference.size(), tree.size());
+
+            if (step % 50 == 0) {
+                for (int i = 0; i < reference.size(); i++) {
+                    Entry entry = reference.get(i);
+                    assertEquals(i, tree.rankOf(entry.xp(), entry.userId()));
+                }
+                int from = random.nextInt(reference.size() + 1);
+                int count = random.nextInt(20);
+                List<UUID> page = new ArrayList<>();
+                tree.collect(from, count, page);
+                assertEquals(reference.subList(from, Math.min(reference.size(), from + count)).stream()
+                        .map(Entry::userId).toList(), page);
+            }
+        }
+    }
+
+    @Test
+    void breaksTiesByUserIdAscending() {
+        XpRankTree tree = new XpRankTree();
+        UUID low = new UUID(0, 1);
+        UUID high = new UUID(0, 2);
+        tree.insert(100, high);
+        tree.insert(100, low);
+        tree.insert(150, high);
+
+        List<UUID> all = new ArrayList<>();
+        tree.collect(0, 10, all);
+        assertEquals(List.of(high, low, high), all);
+        assertEquals(1, tree.rankOf(100, low));
+        assertEquals(2, tree.rankOf(100, high));
+    }
+
+    @Test
+    void removingAnAbsentEntryLeavesTheTreeUntouched() {
+        XpRankTree tree = new XpRankTree();
+        UUID user = new UUID(0, 1);
+        tree.insert(10, user);
+        tree.insert(20, new UUID(0, 2));
+
+        tree.remove(10, new UUID(0, 3));
+        tree.remove(11, user);
+        tree.remove(10, user);
+        tree.remove(10, user);
+
+        assertEquals(1, tree.size());
+        assertEquals(0, tree.rankOf(20, new UUID(0, 2)));
+        // An entry that is not in the tree reports where it would be inserted
+        assertEquals(1, tree.rankOf(10, user));
+    }
+}